@@ -0,0 +1,117 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Consistency check for the running totals and the price and quantity indexes in
+ * InventoryMgt. Applies a random mix of adds, updates, removals, category removals and
+ * threshold changes to an inventory in a temporary folder, comparing the totals with a
+ * full recompute and a price and a quantity range query with a scan after every step,
+ * and once more after the data is reloaded from disk. Then compares the cost of reading
+ * the totals with recomputing them.
+ *
+ * Usage: java AggregatesCheck [operations] [seed]
+ * Defaults to 5000 operations and seed 1. Exits with status 1 on the first mismatch.
+ */
+public class AggregatesCheck {
+    private static final String[] CATEGORIES = {"Brakes", "Engine", "Electrical", "Suspension", "Body", "Fluids", "Tires", "Exhaust"};
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        File folder = Files.createTempDirectory("inventory_aggregates").toFile();
+        System.setProperty("user.dir", folder.getPath()); // InventoryMgt keeps its files in the working folder
+
+        InventoryMgt inventory = new InventoryMgt();
+        Random random = new Random(seed);
+        int nextNumber = 0;
+        for (int step = 0; step < operations; step++) {
+            List<Item> items = inventory.getInventoryItems();
+            int choice = items.isEmpty() ? 0 : random.nextInt(10);
+            // Odd case in category names on purpose: categories match ignoring case
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            category = random.nextInt(4) == 0 ? category.toUpperCase() : category;
+            double price = random.nextInt(200000) / 100.0;
+            int quantity = random.nextInt(30);
+            if (choice < 5) {
+                inventory.addItem(new Item(price, "Part " + nextNumber, "TM-" + nextNumber, quantity, category));
+                nextNumber++;
+            } else if (choice < 8) {
+                Item item = items.get(random.nextInt(items.size()));
+                inventory.updateItem(item.getModelNumber(), new Item(price, item.getModelName(), item.getModelNumber(), quantity, random.nextBoolean() ? item.getItemCategory() : category));
+            } else if (choice < 9) {
+                inventory.removeItemByNumber(items.get(random.nextInt(items.size())).getModelNumber());
+            } else if (random.nextInt(5) == 0) {
+                inventory.removeItemByCategory(items.get(random.nextInt(items.size())).getItemCategory());
+            } else {
+                inventory.setLowStockThreshold(random.nextInt(40));
+            }
+            check(inventory, "step " + step, random);
+        }
+        inventory.shutdown();
+        inventory = new InventoryMgt();
+        check(inventory, "reload", random);
+        System.out.printf("%,d operations checked on %s, %,d items, total worth Php%,.2f, %d low stock categories%n",
+                operations, inventory.getStoreLocation(), inventory.getInventoryItems().size(), inventory.calculateTotalInventoryWorth(), inventory.getLowStockCategories().size());
+
+        int rounds = 10000;
+        long start = System.nanoTime();
+        double sink = 0;
+        for (int round = 0; round < rounds; round++) {
+            sink += inventory.calculateTotalInventoryWorth() + inventory.getLowStockCategories().size();
+        }
+        long maintained = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (Item item : inventory.getInventoryItems()) {
+                sink += item.getModelPrice() * item.getItemQuantity();
+            }
+        }
+        long recomputed = System.nanoTime() - start;
+        System.out.printf("Reading the totals: %.4f ms, recomputing the worth: %.4f ms (%s)%n", maintained / 1e6 / rounds, recomputed / 1e6 / rounds, sink > 0 ? "ok" : "-");
+        inventory.shutdown();
+        System.exit(0);
+    }
+
+    private static void check(InventoryMgt inventory, String when, Random random) {
+        String difference = inventory.verifyAggregates();
+        if (difference == null) {
+            double minPrice = random.nextInt(200000) / 100.0;
+            double maxPrice = minPrice + random.nextInt(50000) / 100.0;
+            int minQuantity = random.nextInt(30);
+            int maxQuantity = minQuantity + random.nextInt(5);
+            Set<Item> byPrice = identitySet(inventory.findItemsByPrice(minPrice, maxPrice));
+            Set<Item> byQuantity = identitySet(inventory.findItemsByQuantity(minQuantity, maxQuantity));
+            Set<Item> expectedByPrice = identitySet(new ArrayList<Item>());
+            Set<Item> expectedByQuantity = identitySet(new ArrayList<Item>());
+            for (Item item : inventory.getInventoryItems()) {
+                if (item.getModelPrice() >= minPrice && item.getModelPrice() <= maxPrice) {
+                    expectedByPrice.add(item);
+                }
+                if (item.getItemQuantity() >= minQuantity && item.getItemQuantity() <= maxQuantity) {
+                    expectedByQuantity.add(item);
+                }
+            }
+            if (!byPrice.equals(expectedByPrice)) {
+                difference = byPrice.size() + " items priced " + minPrice + " to " + maxPrice + ", should be " + expectedByPrice.size();
+            } else if (!byQuantity.equals(expectedByQuantity)) {
+                difference = byQuantity.size() + " items with quantity " + minQuantity + " to " + maxQuantity + ", should be " + expectedByQuantity.size();
+            }
+        }
+        if (difference != null) {
+            System.out.println("FAIL at " + when + ": " + difference);
+            System.exit(1);
+        }
+    }
+
+    private static Set<Item> identitySet(List<Item> items) {
+        Set<Item> set = Collections.newSetFromMap(new IdentityHashMap<Item, Boolean>());
+        set.addAll(items);
+        return set;
+    }
+}
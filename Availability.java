@@ -1,20 +1,36 @@
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.stream.Collectors;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
-public class Availability {
+/**
+ * Reads and writes the inventory_data.csv file. It is the export format that is always
+ * written, and the InventoryStore used when inventory.store is set to csv; the CSV can
+ * only be rewritten as a whole, so every save is a full snapshot.
+ */
+public class Availability implements InventoryStore {
     private String dataFilePath;
+    static final String TEMP_SUFFIX = ".tmp"; // Snapshot being written
+    static final String BACKUP_SUFFIX = ".bak"; // Previous good generation
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private ForkJoinPool loaderPool = ForkJoinPool.commonPool(); // Parses ITEM_DATA in parallel
+    private TransactionLogStore logStore; // Opened on first use, so an export-only instance never touches the log
 
     public Availability() {
         this.dataFilePath = System.getProperty("user.dir") + File.separator + "inventory_data.csv";
@@ -28,22 +44,54 @@ public class Availability {
         return dataFilePath;
     }
 
-    public void setDataFilePath(String dataFilePath) {
+    @Override
+    public synchronized void setDataFilePath(String dataFilePath) {
         this.dataFilePath = dataFilePath;
+        if (logStore != null) {
+            logStore.relocate(dataFilePath);
+        }
+    }
+
+    public int getLoaderParallelism() {
+        return loaderPool.getParallelism();
+    }
+
+    // Number of threads used to parse the ITEM_DATA section; 1 parses it on the calling thread
+    public void setLoaderParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Loader parallelism must be at least 1");
+        }
+        if (loaderPool != ForkJoinPool.commonPool()) {
+            loaderPool.shutdown();
+        }
+        loaderPool = parallelism == ForkJoinPool.commonPool().getParallelism() ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
     }
 
-    public void writeAllDataToFile(List<Item> items, List<Category> categories, int lowStockThreshold, List<String> transactionLogs, String currentDataPath) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(dataFilePath, false))) {
+    public synchronized boolean writeAllDataToFile(List<Item> items, List<Category> categories, int lowStockThreshold, List<String> transactionLogs, String currentDataPath) {
+        return writeAllDataToFile(items, categories, lowStockThreshold, transactionLogs, currentDataPath, null);
+    }
+
+    /**
+     * Writes a full snapshot to a temp file, forces it to disk and then atomically
+     * renames it over the live file. The previous generation is kept as a .bak file
+     * so a crash at any point leaves at least one complete copy behind.
+     * @param snapshotId Identifies this snapshot so a journal can tell whether it was folded in; may be null
+     * @return true if the new snapshot was published
+     */
+    public synchronized boolean writeAllDataToFile(List<Item> items, List<Category> categories, int lowStockThreshold, List<String> transactionLogs, String currentDataPath, String snapshotId) {
+        File tempFile = new File(dataFilePath + TEMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tempFile, false);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out)))) {
             writer.println("CATEGORY_DATA");
             for (Category category : categories) {
                 if (category.getCategoryQuantity() > 0) {
-                    writer.println("CATEGORY," + category.getCategoryName());
+                    writer.println("CATEGORY," + CsvTokenizer.quote(category.getCategoryName()));
                 }
             }
 
             writer.println("ITEM_DATA");
             for (Item item : items) {
-                writer.println("ITEM," + item.getModelNumber() + "," + item.getModelName() + "," + item.getModelPrice() + "," + item.getItemQuantity() + "," + item.getItemCategory());
+                writer.println("ITEM," + CsvTokenizer.quote(item.getModelNumber()) + "," + CsvTokenizer.quote(item.getModelName()) + "," + item.getModelPrice() + "," + item.getItemQuantity() + "," + CsvTokenizer.quote(item.getItemCategory()));
         }
 
             writer.println("LOG_DATA");
@@ -51,91 +99,223 @@ public class Availability {
                 writer.println(logEntry);
             }
 
+            if (snapshotId != null) {
+                writer.println("SNAPSHOT_DATA");
+                writer.println("SNAPSHOT," + snapshotId);
+            }
+
+            // Written last: a file without this section was cut off mid-write
             writer.println("LOWSTOCK_DATA");
             String timestamp = dateFormat.format(new Date());
             writer.println("LOWSTOCK," + timestamp + ",SET," + lowStockThreshold + ",,");
 
-            System.out.println("All data exported successfully to " + dataFilePath);
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Write to " + tempFile.getPath() + " failed");
+            }
+            out.getChannel().force(true); // The bytes must be on disk before the rename makes them live
         } catch (IOException e) {
             System.err.println("Error exporting all data to file: " + e.getMessage());
             e.printStackTrace();
+            tempFile.delete();
+            return false;
+        }
+
+        try {
+            publishSnapshot(tempFile.toPath(), Paths.get(dataFilePath));
+            System.out.println("All data exported successfully to " + dataFilePath);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error replacing " + dataFilePath + " with new snapshot: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Keeps the current file as the .bak generation, then atomically moves the new snapshot into place
+    static void publishSnapshot(Path tempFile, Path dataFile) throws IOException {
+        Path backupFile = Paths.get(dataFile.toString() + BACKUP_SUFFIX);
+        if (Files.exists(dataFile)) {
+            Files.deleteIfExists(backupFile);
+            try {
+                Files.createLink(backupFile, dataFile); // Hard link, so the live file never goes missing
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(dataFile, backupFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        try {
+            Files.move(tempFile, dataFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, dataFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public String getLocation() {
+        return dataFilePath;
+    }
+
+    @Override
+    public boolean exists() {
+        return new File(dataFilePath).isFile();
+    }
+
+    @Override
+    public long lastModified() {
+        return new File(dataFilePath).lastModified();
+    }
+
+    @Override
+    public Map<String, Object> load() {
+        return readAllDataFromFile();
+    }
+
+    @Override
+    public boolean snapshot(List<Item> items, List<Category> categories, int lowStockThreshold, String snapshotId) {
+        return writeAllDataToFile(items, categories, lowStockThreshold, new ArrayList<String>(), dataFilePath, snapshotId);
+    }
+
+    @Override
+    public boolean save(List<Item> items, List<Category> categories, int lowStockThreshold, DirtyTracker changes, String snapshotId) {
+        return snapshot(items, categories, lowStockThreshold, snapshotId);
+    }
+
+    @Override
+    public boolean canSaveInPlace(DirtyTracker changes) {
+        return false;
+    }
+
+    private synchronized TransactionLogStore logStore() {
+        if (logStore == null) {
+            logStore = new TransactionLogStore(dataFilePath);
+        }
+        return logStore;
+    }
+
+    @Override
+    public void appendLog(String logEntry) {
+        logStore().append(logEntry);
+    }
+
+    @Override
+    public void flushLog() {
+        logStore().flush();
+    }
+
+    @Override
+    public int getLogCount() {
+        return logStore().size();
+    }
+
+    @Override
+    public List<String> readLogs(int fromIndex, int count) {
+        return logStore().readPage(fromIndex, count);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (logStore != null) {
+            logStore.close(); // Waits for a segment closed just now to finish compressing
+            logStore = null; // Reopened on next use
         }
     }
 
     public Map<String, Object> readAllDataFromFile() {
+        Map<String, Object> allLoadedData = readDataFile(dataFilePath);
+        if (!(Boolean) allLoadedData.get("complete")) {
+            // The live file is missing or was cut off; fall back to the last good generation if there is one
+            String backupPath = dataFilePath + BACKUP_SUFFIX;
+            if (new File(backupPath).exists()) {
+                Map<String, Object> backupData = readDataFile(backupPath);
+                if ((Boolean) backupData.get("complete")) {
+                    System.err.println("Data file " + dataFilePath + " is missing or incomplete. Rolled back to " + backupPath);
+                    return backupData;
+                }
+            }
+        }
+        return allLoadedData;
+    }
+
+    private Map<String, Object> readDataFile(String filePath) {
         List<Item> loadedItems = new ArrayList<>();
-        List<Category> loadedCategories = new ArrayList<>();
+        Map<String, Category> loadedCategories = new LinkedHashMap<>(); // By ItemSectionLoader.categoryKey
         List<String> loadedLogs = new ArrayList<>();
         int loadedLowStockThreshold = 5;
         String loadedDataPath = System.getProperty("user.dir") + File.separator + "inventory_data.csv";
+        String loadedSnapshotId = null;
+        boolean complete = false;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(dataFilePath))) {
-            String line;
+        try {
+            // One pass over the file's chars; fields are read in place instead of split into arrays
+            CsvTokenizer tokenizer = CsvTokenizer.forFile(filePath);
             String currentSection = "";
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-
-                if (line.endsWith("_DATA")) {
-                    currentSection = line;
+            while (tokenizer.nextLine()) {
+                if (tokenizer.lineEndsWith("_DATA")) {
+                    currentSection = tokenizer.line();
+                    if (currentSection.equals("ITEM_DATA")) {
+                        // Items are parsed in parallel; reading resumes at the header that ends the section
+                        ItemSectionLoader.Result section = ItemSectionLoader.parse(tokenizer.getBuffer(), tokenizer.getPosition(), tokenizer.getEnd(), loaderPool);
+                        loadedItems.addAll(section.getItems());
+                        for (Map.Entry<String, Category> total : section.getCategoryTotals().entrySet()) {
+                            Category category = loadedCategories.get(total.getKey());
+                            if (category == null) {
+                                loadedCategories.put(total.getKey(), total.getValue());
+                            } else {
+                                // Keeps the name and place of the CATEGORY line
+                                loadedCategories.put(total.getKey(), new Category(category.getCategoryName(), category.getCategoryQuantity() + total.getValue().getCategoryQuantity()));
+                            }
+                        }
+                        tokenizer = new CsvTokenizer(tokenizer.getBuffer(), section.getSectionEnd(), tokenizer.getEnd());
+                    }
                     continue;
                 }
 
+                tokenizer.nextField(); // Record type
                 switch (currentSection) {
                     case "CATEGORY_DATA":
-                        if (line.startsWith("CATEGORY,") && line.split(",").length >= 2) {
-                            String categoryName = line.split(",")[1].trim();
-                            addCategoryIfNotExist(loadedCategories, categoryName);
-    }
-                        break;
-                    case "ITEM_DATA":
-                        if (line.startsWith("ITEM,") && line.split(",").length >= 6) {
-                            try {
-                                String[] parts = line.split(",");
-                                String modelNumber = parts[1].trim();
-                                String modelName = parts[2].trim();
-                                double modelPrice = Double.parseDouble(parts[3].trim());
-                                int itemQuantity = Integer.parseInt(parts[4].trim());
-                                String itemCategory = parts[5].trim();
-                                loadedItems.add(new Item(modelPrice, modelName, modelNumber, itemQuantity, itemCategory));
-                                addOrUpdateCategory(loadedCategories, itemCategory, itemQuantity);
-                            } catch (NumberFormatException e) {
-                                System.err.println("Skipping invalid ITEM line (Number format error): " + line);
-                            }
+                        if (tokenizer.fieldEquals("CATEGORY") && tokenizer.nextField() && !tokenizer.isFieldEmpty()) {
+                            String categoryName = tokenizer.field();
+                            loadedCategories.putIfAbsent(ItemSectionLoader.categoryKey(categoryName), new Category(categoryName, 0));
                         }
                         break;
                     case "LOG_DATA":
-                        loadedLogs.add(line);
-                        if (line.startsWith("LOWSTOCK,") && line.split(",").length >= 4) {
+                        loadedLogs.add(tokenizer.line());
+                        if (tokenizer.fieldEquals("LOWSTOCK") && tokenizer.skipFields(3)) {
                             try {
-                                loadedLowStockThreshold = Integer.parseInt(line.split(",")[3].trim());
+                                loadedLowStockThreshold = tokenizer.fieldAsInt();
                             } catch (NumberFormatException e) {
-                                System.err.println("Error parsing LOWSTOCK threshold from log: " + line);
+                                System.err.println("Error parsing LOWSTOCK threshold from log: " + tokenizer.line());
                             }
                         }
                         break;
                     case "LOWSTOCK_DATA":
-                        if (line.startsWith("LOWSTOCK,") && line.split(",").length >= 4) {
+                        if (tokenizer.fieldEquals("LOWSTOCK") && tokenizer.skipFields(3)) {
                             try {
-                                loadedLowStockThreshold = Integer.parseInt(line.split(",")[3].trim());
+                                loadedLowStockThreshold = tokenizer.fieldAsInt();
+                                complete = true;
                             } catch (NumberFormatException e) {
-                                System.err.println("Error parsing LOWSTOCK threshold: " + line);
+                                System.err.println("Error parsing LOWSTOCK threshold: " + tokenizer.line());
                             }
                         }
                         break;
+                    case "SNAPSHOT_DATA":
+                        if (tokenizer.fieldEquals("SNAPSHOT") && tokenizer.nextField()) {
+                            loadedSnapshotId = tokenizer.field();
+                        }
+                        break;
                     case "DATA_PATH":
-                        if (line.startsWith("PATH,") && line.split(",").length >= 2) {
-                            loadedDataPath = line.split(",")[1].trim();
+                        if (tokenizer.fieldEquals("PATH") && tokenizer.nextField()) {
+                            loadedDataPath = tokenizer.field();
                         }
                         break;
                 }
             }
         } catch (IOException e) {
-            System.out.println("No existing " + dataFilePath + " found or error reading file. Starting with default values.");
+            System.out.println("No existing " + filePath + " found or error reading file. Starting with default values.");
             e.printStackTrace();
         }
 
-        List<Category> filteredCategories = loadedCategories.stream()
+        List<Category> filteredCategories = loadedCategories.values().stream()
                 .filter(c -> c.getCategoryQuantity() > 0)
                 .collect(Collectors.toList());
 
@@ -145,34 +325,9 @@ public class Availability {
         allLoadedData.put("logs", loadedLogs);
         allLoadedData.put("lowStockThreshold", loadedLowStockThreshold);
         allLoadedData.put("dataPath", loadedDataPath);
+        allLoadedData.put("snapshotId", loadedSnapshotId);
+        allLoadedData.put("complete", complete);
 
         return allLoadedData;
     }
-
-    private void addOrUpdateCategory(List<Category> categories, String categoryName, int quantity) {
-        boolean found = false;
-        for (Category cat : categories) {
-            if (cat.getCategoryName().equalsIgnoreCase(categoryName)) {
-                cat.increaseQuantity(quantity);
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
-            categories.add(new Category(categoryName, quantity));
-        }
-    }
-
-    private void addCategoryIfNotExist(List<Category> categories, String categoryName) {
-        boolean found = false;
-        for (Category cat : categories) {
-            if (cat.getCategoryName().equalsIgnoreCase(categoryName)) {
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
-            categories.add(new Category(categoryName, 0));
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import javax.swing.Timer;
+
+/**
+ * Hands events to a listener on an executor instead of the thread that made the change.
+ * Events that arrive before the listener gets to run are merged into one: their changes
+ * in version order, the latest version, and a reload if any of them was one. A listener
+ * that falls behind therefore gets fewer, larger events rather than a growing backlog.
+ *
+ * onEventDispatchThread delivers on the Swing thread at most once per frame.
+ */
+public class BatchingInventoryListener implements InventoryListener {
+    static final int FRAME_MILLIS = 16; // About 60 deliveries a second at most
+
+    private final InventoryListener target;
+    private final Executor executor;
+    private final List<InventoryEvent> queued = new ArrayList<>();
+    private boolean deliveryScheduled;
+
+    public BatchingInventoryListener(InventoryListener target, Executor executor) {
+        this.target = target;
+        this.executor = executor;
+    }
+
+    // Delivers on the event dispatch thread, one frame after the first event of a batch
+    public static BatchingInventoryListener onEventDispatchThread(InventoryListener target) {
+        return new BatchingInventoryListener(target, delivery -> {
+            Timer timer = new Timer(FRAME_MILLIS, e -> delivery.run());
+            timer.setRepeats(false);
+            timer.start();
+        });
+    }
+
+    @Override
+    public void inventoryChanged(InventoryEvent event) {
+        synchronized (this) {
+            queued.add(event);
+            if (deliveryScheduled) {
+                return; // Joins the batch already waiting
+            }
+            deliveryScheduled = true;
+        }
+        executor.execute(this::deliver);
+    }
+
+    private void deliver() {
+        List<InventoryEvent> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(queued);
+            queued.clear();
+            deliveryScheduled = false;
+        }
+        try {
+            target.inventoryChanged(merge(batch));
+        } catch (Exception e) {
+            System.err.println("Error in inventory listener: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Writers on different threads can queue their events out of version order
+    private static InventoryEvent merge(List<InventoryEvent> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0);
+        }
+        batch.sort(Comparator.comparingLong(InventoryEvent::getVersion));
+        List<InventoryEvent.Change> changes = new ArrayList<>();
+        boolean reload = false;
+        for (InventoryEvent event : batch) {
+            if (event.isReload()) {
+                changes.clear(); // Whatever changed before is superseded by what was read back
+                reload = true;
+            }
+            changes.addAll(event.getChanges());
+        }
+        InventoryEvent last = batch.get(batch.size() - 1);
+        return new InventoryEvent(last.getSource(), last.getVersion(), changes, reload);
+    }
+}
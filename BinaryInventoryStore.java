@@ -0,0 +1,138 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * InventoryStore on the binary snapshot (inventory_data.bin). Price,
+ * quantity and threshold changes are patched into the file in place; anything that
+ * changes its layout rewrites it. The transaction history goes to the file-based
+ * TransactionLogStore next to it.
+ */
+public class BinaryInventoryStore implements InventoryStore {
+    private final BinarySnapshot snapshot;
+    private String dataFilePath;
+    private TransactionLogStore logStore; // Opened on first use
+
+    public BinaryInventoryStore(String dataFilePath) {
+        this.dataFilePath = dataFilePath;
+        this.snapshot = new BinarySnapshot(BinarySnapshot.pathFor(dataFilePath));
+    }
+
+    @Override
+    public String getLocation() {
+        return snapshot.getSnapshotFilePath();
+    }
+
+    @Override
+    public synchronized void setDataFilePath(String dataFilePath) {
+        this.dataFilePath = dataFilePath;
+        snapshot.setSnapshotFilePath(BinarySnapshot.pathFor(dataFilePath));
+        if (logStore != null) {
+            logStore.relocate(dataFilePath);
+        }
+    }
+
+    @Override
+    public boolean exists() {
+        return snapshot.exists();
+    }
+
+    @Override
+    public long lastModified() {
+        return snapshot.lastModified();
+    }
+
+    @Override
+    public Map<String, Object> load() {
+        snapshot.clearLayout();
+        Map<String, Object> loadedData = snapshot.read();
+        if (loadedData == null) {
+            // Cut off or unreadable: try the previous generation; the live file is rewritten on the next save
+            loadedData = new BinarySnapshot(snapshot.getSnapshotFilePath() + Availability.BACKUP_SUFFIX).read();
+        }
+        if (loadedData != null) {
+            System.out.println("Loaded binary snapshot " + snapshot.getSnapshotFilePath());
+        }
+        return loadedData;
+    }
+
+    @Override
+    public boolean snapshot(List<Item> items, List<Category> categories, int lowStockThreshold, String snapshotId) {
+        return snapshot.write(items, categories, lowStockThreshold, Collections.<String>emptyList(), snapshotId);
+    }
+
+    @Override
+    public boolean save(List<Item> items, List<Category> categories, int lowStockThreshold, DirtyTracker changes, String snapshotId) {
+        if (canSaveInPlace(changes)
+                && snapshot.patch(lowStockThreshold, dirtyCategories(categories, changes), dirtyItemRows(items, changes), snapshotId)) {
+            return true;
+        }
+        return snapshot(items, categories, lowStockThreshold, snapshotId);
+    }
+
+    @Override
+    public boolean canSaveInPlace(DirtyTracker changes) {
+        return !changes.needsRewrite() && snapshot.hasLayout();
+    }
+
+    private static List<Category> dirtyCategories(List<Category> categories, DirtyTracker changes) {
+        List<Category> dirty = new ArrayList<>();
+        for (Category category : categories) {
+            if (changes.getDirtyCategories().contains(category.getCategoryName())) {
+                dirty.add(category);
+            }
+        }
+        return dirty;
+    }
+
+    // Dirty items by their row in the snapshot, which is their list index while no item was added or removed
+    private static Map<Integer, Item> dirtyItemRows(List<Item> items, DirtyTracker changes) {
+        Map<Integer, Item> rows = new HashMap<>();
+        Set<String> dirtyItems = changes.getDirtyItems();
+        for (int row = 0; row < items.size() && rows.size() < dirtyItems.size(); row++) {
+            if (dirtyItems.contains(items.get(row).getModelNumber())) {
+                rows.put(row, items.get(row));
+            }
+        }
+        return rows;
+    }
+
+    private synchronized TransactionLogStore logStore() {
+        if (logStore == null) {
+            logStore = new TransactionLogStore(dataFilePath);
+        }
+        return logStore;
+    }
+
+    @Override
+    public void appendLog(String logEntry) {
+        logStore().append(logEntry);
+    }
+
+    @Override
+    public void flushLog() {
+        logStore().flush();
+    }
+
+    @Override
+    public int getLogCount() {
+        return logStore().size();
+    }
+
+    @Override
+    public List<String> readLogs(int fromIndex, int count) {
+        return logStore().readPage(fromIndex, count);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (logStore != null) {
+            logStore.close(); // Waits for a segment closed just now to finish compressing
+            logStore = null; // Reopened on next use
+        }
+    }
+}
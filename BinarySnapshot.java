@@ -0,0 +1,394 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary snapshot of the inventory, written next to inventory_data.csv for
+ * fast startup. The CSV stays the export and interchange format; this file is only
+ * read back by the application itself, in one FileChannel read into a heap buffer. The
+ * file is not memory-mapped: on Windows a mapped file cannot be replaced until the
+ * mapping is garbage collected, which would make every later snapshot write fail.
+ *
+ * Layout (big-endian):
+ *   header      magic "TMHB", version, created millis, low stock threshold,
+ *               snapshot id, offset of the log segment
+ *   dictionary  distinct category names; items refer to them by index
+ *   categories  category count, then (dictionary id, quantity) per category
+ *   items       item count, then columns: double price[], int quantity[],
+ *               int categoryId[], model numbers, model names
+ *   log         log line count, then the log lines
+ *   trailer     magic "TMHE"; a file without it was cut off mid-write
+ * Strings are stored as an int byte length followed by UTF-8 bytes (-1 for null).
+ *
+ * After a write or a read the positions of the fixed-width values are remembered,
+ * so prices, quantities and the threshold can later be patched in place with patch().
+ */
+public class BinarySnapshot {
+    private static final int MAGIC = 0x544D4842; // "TMHB"
+    private static final int TRAILER_MAGIC = 0x544D4845; // "TMHE"
+    private static final int VERSION = 1;
+    private static final int THRESHOLD_POSITION = 4 + 4 + 8; // magic, version, created
+    private static final int LOG_OFFSET_POSITION = THRESHOLD_POSITION + 4;
+    private static final int SNAPSHOT_ID_POSITION = LOG_OFFSET_POSITION + 8;
+
+    private String snapshotFilePath;
+
+    // Where the fixed-width values of the current file sit; null when unknown
+    private Layout layout;
+
+    private static class Layout {
+        int snapshotIdLength; // In bytes, -1 for no id
+        long categoryRecordsPosition;
+        Map<String, Integer> categorySlots = new HashMap<>();
+        long itemColumnsPosition;
+        int itemCount;
+        long fileLength; // To notice the file being replaced behind our back
+        long fileModified;
+    }
+
+    public BinarySnapshot(String snapshotFilePath) {
+        this.snapshotFilePath = snapshotFilePath;
+    }
+
+    // inventory_data.csv -> inventory_data.bin, in the same folder
+    public static String pathFor(String dataFilePath) {
+        String basePath = dataFilePath.toLowerCase().endsWith(".csv") ? dataFilePath.substring(0, dataFilePath.length() - 4) : dataFilePath;
+        return basePath + ".bin";
+    }
+
+    public String getSnapshotFilePath() {
+        return snapshotFilePath;
+    }
+
+    public synchronized void setSnapshotFilePath(String snapshotFilePath) {
+        this.snapshotFilePath = snapshotFilePath;
+        this.layout = null;
+    }
+
+    // Whether patch() can be used: the file was written or read by this instance since it last changed
+    public synchronized boolean hasLayout() {
+        return layout != null;
+    }
+
+    public synchronized void clearLayout() {
+        layout = null;
+    }
+
+    public boolean exists() {
+        return new File(snapshotFilePath).isFile();
+    }
+
+    public long lastModified() {
+        return new File(snapshotFilePath).lastModified();
+    }
+
+    /**
+     * Writes the snapshot to a temp file, forces it to disk and atomically moves it into place.
+     * @return true if the new snapshot was published
+     */
+    public synchronized boolean write(List<Item> items, List<Category> categories, int lowStockThreshold, List<String> transactionLogs, String snapshotId) {
+        File tempFile = new File(snapshotFilePath + Availability.TEMP_SUFFIX);
+        layout = null;
+        Layout newLayout = new Layout();
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile, false)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16));
+
+            // Category dictionary: every distinct name used by a category or an item
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            for (Category category : categories) {
+                dictionary.putIfAbsent(category.getCategoryName(), dictionary.size());
+            }
+            for (Item item : items) {
+                dictionary.putIfAbsent(item.getItemCategory(), dictionary.size());
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(lowStockThreshold);
+            out.writeLong(0L); // Log segment offset, patched below
+            newLayout.snapshotIdLength = snapshotId == null ? -1 : snapshotId.getBytes(StandardCharsets.UTF_8).length;
+            writeString(out, snapshotId);
+
+            out.writeInt(dictionary.size());
+            for (String name : dictionary.keySet()) {
+                writeString(out, name);
+            }
+
+            List<Category> storedCategories = new ArrayList<>();
+            for (Category category : categories) {
+                if (category.getCategoryQuantity() > 0) {
+                    storedCategories.add(category); // Same rule as the CSV: empty categories are not kept
+                }
+            }
+            out.writeInt(storedCategories.size());
+            newLayout.categoryRecordsPosition = out.size();
+            for (Category category : storedCategories) {
+                newLayout.categorySlots.put(category.getCategoryName(), newLayout.categorySlots.size());
+                out.writeInt(dictionary.get(category.getCategoryName()));
+                out.writeInt(category.getCategoryQuantity());
+            }
+
+            out.writeInt(items.size());
+            newLayout.itemColumnsPosition = out.size();
+            newLayout.itemCount = items.size();
+            for (Item item : items) {
+                out.writeDouble(item.getModelPrice());
+            }
+            for (Item item : items) {
+                out.writeInt(item.getItemQuantity());
+            }
+            for (Item item : items) {
+                out.writeInt(dictionary.get(item.getItemCategory()));
+            }
+            for (Item item : items) {
+                writeString(out, item.getModelNumber());
+            }
+            for (Item item : items) {
+                writeString(out, item.getModelName());
+            }
+
+            long logOffset = out.size();
+            out.writeInt(transactionLogs.size());
+            for (String logEntry : transactionLogs) {
+                writeString(out, logEntry);
+            }
+            out.writeInt(TRAILER_MAGIC);
+            out.flush();
+
+            FileChannel channel = fileOut.getChannel();
+            ByteBuffer offsetBuffer = ByteBuffer.allocate(8);
+            offsetBuffer.putLong(logOffset).flip();
+            channel.write(offsetBuffer, LOG_OFFSET_POSITION);
+            channel.force(true); // The bytes must be on disk before the rename makes them live
+        } catch (IOException e) {
+            System.err.println("Error writing binary snapshot " + snapshotFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+            tempFile.delete();
+            return false;
+        }
+
+        try {
+            Availability.publishSnapshot(tempFile.toPath(), Paths.get(snapshotFilePath));
+            layout = newLayout;
+            rememberFileState();
+            System.out.println("Binary snapshot written to " + snapshotFilePath);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error replacing " + snapshotFilePath + " with new snapshot: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Overwrites fixed-width values of the current file in place instead of writing a new
+     * one. The values go first and the new snapshot id last, each forced to disk, so a
+     * crash in between leaves the old id and the journal is replayed over the file again;
+     * all patched values are absolute, so replaying them twice is harmless.
+     * @param lowStockThreshold The threshold to store
+     * @param categories Categories whose quantity changed
+     * @param itemRows Changed items by their position in the list the file was written from
+     * @param snapshotId New snapshot id; must have the same length as the current one
+     * @return false if the change does not fit the current layout; nothing was written then
+     */
+    public synchronized boolean patch(int lowStockThreshold, List<Category> categories, Map<Integer, Item> itemRows, String snapshotId) {
+        byte[] idBytes = snapshotId == null ? null : snapshotId.getBytes(StandardCharsets.UTF_8);
+        File file = new File(snapshotFilePath);
+        if (layout == null || idBytes == null || idBytes.length != layout.snapshotIdLength
+                || file.length() != layout.fileLength || file.lastModified() != layout.fileModified) {
+            return false;
+        }
+        for (Category category : categories) {
+            if (!layout.categorySlots.containsKey(category.getCategoryName()) || category.getCategoryQuantity() <= 0) {
+                return false; // New or emptied categories change the section's layout
+            }
+        }
+        for (Integer row : itemRows.keySet()) {
+            if (row < 0 || row >= layout.itemCount) {
+                return false;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFilePath), StandardOpenOption.WRITE)) {
+            writeAt(channel, intBytes(lowStockThreshold), THRESHOLD_POSITION);
+            for (Category category : categories) {
+                long position = layout.categoryRecordsPosition + layout.categorySlots.get(category.getCategoryName()) * 8L + 4;
+                writeAt(channel, intBytes(category.getCategoryQuantity()), position);
+            }
+            long quantityColumn = layout.itemColumnsPosition + layout.itemCount * 8L;
+            for (Map.Entry<Integer, Item> row : itemRows.entrySet()) {
+                Item item = row.getValue();
+                writeAt(channel, doubleBytes(item.getModelPrice()), layout.itemColumnsPosition + row.getKey() * 8L);
+                writeAt(channel, intBytes(item.getItemQuantity()), quantityColumn + row.getKey() * 4L);
+            }
+            channel.force(false);
+            writeAt(channel, ByteBuffer.wrap(idBytes), SNAPSHOT_ID_POSITION + 4);
+            channel.force(false);
+            rememberFileState();
+            System.out.println("Binary snapshot patched in place: " + categories.size() + " categories, " + itemRows.size() + " items");
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error patching binary snapshot " + snapshotFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+            layout = null; // The next save rewrites the file
+            return false;
+        }
+    }
+
+    private void rememberFileState() {
+        File file = new File(snapshotFilePath);
+        layout.fileLength = file.length();
+        layout.fileModified = file.lastModified();
+    }
+
+    // flip() is called on its own: it returns a Buffer before Java 9 and a ByteBuffer after
+    private static ByteBuffer intBytes(int value) {
+        ByteBuffer bytes = ByteBuffer.allocate(4).putInt(value);
+        bytes.flip();
+        return bytes;
+    }
+
+    private static ByteBuffer doubleBytes(double value) {
+        ByteBuffer bytes = ByteBuffer.allocate(8).putDouble(value);
+        bytes.flip();
+        return bytes;
+    }
+
+    private static void writeAt(FileChannel channel, ByteBuffer value, long position) throws IOException {
+        while (value.hasRemaining()) {
+            position += channel.write(value, position);
+        }
+    }
+
+    /**
+     * Reads the snapshot file into memory and decodes it into the same structure that
+     * Availability.readAllDataFromFile returns.
+     * @return The loaded data, or null if the file is missing, from another version, or incomplete
+     */
+    public synchronized Map<String, Object> read() {
+        layout = null;
+        Layout newLayout = new Layout();
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFilePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                System.err.println("Binary snapshot " + snapshotFilePath + " is too large to read");
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Reads until the buffer is full or the file ends
+            }
+            buffer.flip();
+            if (buffer.limit() < LOG_OFFSET_POSITION + 8 + 4 || buffer.getInt() != MAGIC) {
+                System.err.println("Not a binary inventory snapshot: " + snapshotFilePath);
+                return null;
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                System.err.println("Unsupported binary snapshot version " + version + " in " + snapshotFilePath);
+                return null;
+            }
+            if (buffer.getInt(buffer.limit() - 4) != TRAILER_MAGIC) {
+                System.err.println("Binary snapshot " + snapshotFilePath + " is incomplete");
+                return null;
+            }
+            buffer.getLong(); // Created millis
+            int lowStockThreshold = buffer.getInt();
+            long logOffset = buffer.getLong();
+            byte[] scratch = new byte[256];
+            newLayout.snapshotIdLength = buffer.getInt(SNAPSHOT_ID_POSITION);
+            String snapshotId = readString(buffer, scratch);
+
+            String[] dictionary = new String[buffer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(buffer, scratch);
+            }
+
+            int categoryCount = buffer.getInt();
+            List<Category> categories = new ArrayList<>(categoryCount);
+            newLayout.categoryRecordsPosition = buffer.position();
+            for (int i = 0; i < categoryCount; i++) {
+                String name = dictionary[buffer.getInt()];
+                newLayout.categorySlots.put(name, i);
+                categories.add(new Category(name, buffer.getInt()));
+            }
+
+            // Columns are fixed width, so each one is read as a single bulk view
+            int itemCount = buffer.getInt();
+            newLayout.itemColumnsPosition = buffer.position();
+            newLayout.itemCount = itemCount;
+            double[] prices = new double[itemCount];
+            buffer.asDoubleBuffer().get(prices);
+            buffer.position(buffer.position() + itemCount * 8);
+            int[] quantities = new int[itemCount];
+            buffer.asIntBuffer().get(quantities);
+            buffer.position(buffer.position() + itemCount * 4);
+            int[] categoryIds = new int[itemCount];
+            buffer.asIntBuffer().get(categoryIds);
+            buffer.position(buffer.position() + itemCount * 4);
+            String[] modelNumbers = new String[itemCount];
+            for (int i = 0; i < itemCount; i++) {
+                modelNumbers[i] = readString(buffer, scratch);
+            }
+            List<Item> items = new ArrayList<>(itemCount);
+            StringPool modelNames = new StringPool(); // Categories already share the dictionary's strings
+            for (int i = 0; i < itemCount; i++) {
+                items.add(new Item(prices[i], modelNames.intern(readString(buffer, scratch)), modelNumbers[i], quantities[i], dictionary[categoryIds[i]]));
+            }
+
+            buffer.position((int) logOffset);
+            int logCount = buffer.getInt();
+            List<String> logs = new ArrayList<>(logCount);
+            for (int i = 0; i < logCount; i++) {
+                logs.add(readString(buffer, scratch));
+            }
+
+            Map<String, Object> loadedData = new HashMap<>();
+            loadedData.put("items", items);
+            loadedData.put("categories", categories);
+            loadedData.put("logs", logs);
+            loadedData.put("lowStockThreshold", lowStockThreshold);
+            loadedData.put("dataPath", null); // The caller keeps its own data path
+            loadedData.put("snapshotId", snapshotId);
+            loadedData.put("complete", true);
+            layout = newLayout;
+            rememberFileState();
+            return loadedData;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading binary snapshot " + snapshotFilePath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary index from a category key (see ItemSectionLoader.categoryKey) to the
+ * category's record and the items filed under it. InventoryMgt keeps it in step with
+ * its lists on every mutation, so finding a category or its items costs the size of
+ * that category rather than a walk over the whole inventory.
+ *
+ * Items and categories are indexed separately: an item can name a category that has
+ * no record yet (mid-replay), and a category record can exist with no items.
+ */
+public class CategoryIndex {
+    private static class Entry {
+        Category category;
+        final Set<Item> items = new LinkedHashSet<>(); // Identity: Item does not override equals
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public Category getCategory(String categoryName) {
+        Entry entry = entries.get(ItemSectionLoader.categoryKey(categoryName));
+        return entry == null ? null : entry.category;
+    }
+
+    // Items in the category, in the order they were filed under it; the set must not be modified
+    public Set<Item> getItems(String categoryName) {
+        Entry entry = entries.get(ItemSectionLoader.categoryKey(categoryName));
+        return entry == null ? Collections.<Item>emptySet() : Collections.unmodifiableSet(entry.items);
+    }
+
+    public void putCategory(Category category) {
+        entry(category.getCategoryName()).category = category;
+    }
+
+    public Category removeCategory(String categoryName) {
+        String key = ItemSectionLoader.categoryKey(categoryName);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        Category removed = entry.category;
+        entry.category = null;
+        if (entry.items.isEmpty()) {
+            entries.remove(key);
+        }
+        return removed;
+    }
+
+    public void addItem(Item item) {
+        entry(item.getItemCategory()).items.add(item);
+    }
+
+    public void removeItem(Item item) {
+        String key = ItemSectionLoader.categoryKey(item.getItemCategory());
+        Entry entry = entries.get(key);
+        if (entry != null && entry.items.remove(item) && entry.items.isEmpty() && entry.category == null) {
+            entries.remove(key);
+        }
+    }
+
+    // Removes every item of the category from the index and returns them
+    public List<Item> removeItems(String categoryName) {
+        String key = ItemSectionLoader.categoryKey(categoryName);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return new ArrayList<>();
+        }
+        List<Item> removed = new ArrayList<>(entry.items);
+        entry.items.clear();
+        if (entry.category == null) {
+            entries.remove(key);
+        }
+        return removed;
+    }
+
+    public void rebuild(List<Item> items, List<Category> categories) {
+        entries.clear();
+        for (Category category : categories) {
+            putCategory(category);
+        }
+        for (Item item : items) {
+            addItem(item);
+        }
+    }
+
+    private Entry entry(String categoryName) {
+        String key = ItemSectionLoader.categoryKey(categoryName);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares worth by category over the InventoryAggregates columns with the same pass
+ * over the Item objects, checks that both give the same totals, and measures the heap
+ * the columns take next to the items themselves.
+ *
+ * Usage: java ColumnarBenchmark [itemCount] [rounds]
+ * Defaults to 1000000 items and 20 timed rounds. Exits with status 1 if the totals differ.
+ */
+public class ColumnarBenchmark {
+    public static void main(String[] args) {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        long heapBefore = usedHeap();
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(CsvLoadBenchmark.syntheticItem(i, "Brake Shoe TMX" + i));
+        }
+        Collections.shuffle(items, new Random(1)); // Items scattered over the heap, as after edits
+        long itemsHeap = usedHeap() - heapBefore;
+        heapBefore = usedHeap();
+        InventoryAggregates aggregates = new InventoryAggregates();
+        aggregates.rebuild(items, new ArrayList<Category>());
+        long columnsHeap = usedHeap() - heapBefore;
+        System.out.printf("Heap for %,d items: Item objects %,d bytes (%d per item), aggregates %,d bytes (%d per item)%n",
+                itemCount, itemsHeap, itemsHeap / itemCount, columnsHeap, columnsHeap / itemCount);
+
+        Map<String, Double> fromItems = null;
+        Map<String, Double> fromColumns = null;
+        long itemsBest = Long.MAX_VALUE;
+        long columnsBest = Long.MAX_VALUE;
+        for (int round = 0; round < rounds + 1; round++) { // The first round warms up
+            long start = System.nanoTime();
+            fromItems = worthByCategory(items);
+            long itemsTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            fromColumns = aggregates.getWorthByCategory();
+            long columnsTime = System.nanoTime() - start;
+            if (round > 0) {
+                itemsBest = Math.min(itemsBest, itemsTime);
+                columnsBest = Math.min(columnsBest, columnsTime);
+            }
+        }
+        System.out.printf("Worth by category over %,d items: objects %.2f ms, columns %.2f ms (%.1fx)%n",
+                itemCount, itemsBest / 1e6, columnsBest / 1e6, (double) itemsBest / columnsBest);
+
+        boolean passed = fromColumns.size() == fromItems.size();
+        for (Map.Entry<String, Double> entry : fromColumns.entrySet()) {
+            Double expected = fromItems.get(ItemSectionLoader.categoryKey(entry.getKey()));
+            if (expected == null || Math.abs(expected - entry.getValue()) > 1e-6 * Math.abs(expected)) {
+                System.out.println("FAIL: " + entry.getKey() + " is " + entry.getValue() + " in the columns, " + expected + " over the items");
+                passed = false;
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    // The pass as it would be written over the item list
+    private static Map<String, Double> worthByCategory(List<Item> items) {
+        Map<String, Double> worth = new HashMap<>();
+        for (Item item : items) {
+            worth.merge(ItemSectionLoader.categoryKey(item.getItemCategory()), item.getModelPrice() * item.getItemQuantity(), Double::sum);
+        }
+        return worth;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares load time of the single-pass CsvTokenizer loader against the old
+ * split(",")-based loader on a synthetic inventory file, and against the
+ * binary snapshot written from the same data.
+ *
+ * Usage: java CsvLoadBenchmark [itemCount] [logCount] [rounds]
+ * Defaults to 500000 items, 500000 log lines and 5 timed rounds after a warm-up.
+ */
+@SuppressWarnings("unchecked")
+public class CsvLoadBenchmark {
+    static final String[] CATEGORIES = {"Brakes", "Engine", "Electrical", "Suspension", "Body", "Fluids", "Tires", "Exhaust"};
+
+    public static void main(String[] args) throws IOException {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int logCount = args.length > 1 ? Integer.parseInt(args[1]) : 500000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        File dataFile = File.createTempFile("inventory_benchmark", ".csv");
+        dataFile.deleteOnExit();
+        writeSyntheticFile(dataFile, itemCount, logCount);
+        System.out.printf("Synthetic file: %,d items, %,d log lines, %,d bytes%n", itemCount, logCount, dataFile.length());
+
+        Availability availability = new Availability(dataFile.getPath());
+        // Warm-up so both loaders are measured after JIT compilation
+        legacyLoad(dataFile.getPath());
+        availability.readAllDataFromFile();
+
+        long legacyBest = Long.MAX_VALUE;
+        long tokenizerBest = Long.MAX_VALUE;
+        int legacyItems = 0;
+        int tokenizerItems = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            legacyItems = legacyLoad(dataFile.getPath());
+            legacyBest = Math.min(legacyBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            Map<String, Object> loaded = availability.readAllDataFromFile();
+            tokenizerBest = Math.min(tokenizerBest, System.nanoTime() - start);
+            tokenizerItems = ((List<?>) loaded.get("items")).size();
+        }
+
+        Map<String, Object> loaded = availability.readAllDataFromFile();
+        File snapshotFile = File.createTempFile("inventory_benchmark", ".bin");
+        snapshotFile.deleteOnExit();
+        BinarySnapshot binarySnapshot = new BinarySnapshot(snapshotFile.getPath());
+        binarySnapshot.write((List<Item>) loaded.get("items"), (List<Category>) loaded.get("categories"), 5, (List<String>) loaded.get("logs"), null);
+        binarySnapshot.read();
+        long binaryBest = Long.MAX_VALUE;
+        int binaryItems = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            Map<String, Object> binaryLoaded = binarySnapshot.read();
+            binaryBest = Math.min(binaryBest, System.nanoTime() - start);
+            binaryItems = ((List<?>) binaryLoaded.get("items")).size();
+        }
+
+        System.out.printf("split(\",\") loader : %,8.1f ms (%,d items)%n", legacyBest / 1e6, legacyItems);
+        System.out.printf("CsvTokenizer loader: %,8.1f ms (%,d items)%n", tokenizerBest / 1e6, tokenizerItems);
+        System.out.printf("Binary snapshot    : %,8.1f ms (%,d items, %,d bytes)%n", binaryBest / 1e6, binaryItems, snapshotFile.length());
+        System.out.printf("Speed-up vs split  : tokenizer %.2fx, binary %.2fx%n", (double) legacyBest / tokenizerBest, (double) legacyBest / binaryBest);
+    }
+
+    // Item i of the synthetic inventory, for the benchmarks that build their items in memory
+    static Item syntheticItem(int i, String modelName) {
+        return new Item(100 + (i % 5000) * 0.25, modelName, "TM-" + i, 1 + i % 20, CATEGORIES[i % CATEGORIES.length]);
+    }
+
+    static void writeSyntheticFile(File file, int itemCount, int logCount) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("CATEGORY_DATA");
+            for (String category : CATEGORIES) {
+                writer.println("CATEGORY," + category);
+            }
+            writer.println("ITEM_DATA");
+            for (int i = 0; i < itemCount; i++) {
+                Item item = syntheticItem(i, "Brake Shoe w/ Slotted Line TMX" + (i % 1000));
+                writer.println("ITEM," + item.getModelNumber() + "," + item.getModelName() + "," + item.getModelPrice() + "," + item.getItemQuantity() + "," + item.getItemCategory());
+            }
+            writer.println("LOG_DATA");
+            for (int i = 0; i < logCount; i++) {
+                writer.println("LOG,2025-01-01 10:00:00,REMOVE,Brake Shoe,TM-" + i + ",1," + CATEGORIES[i % CATEGORIES.length]);
+            }
+            writer.println("LOWSTOCK_DATA");
+            writer.println("LOWSTOCK,2025-01-01 10:00:00,SET,5,,");
+        }
+    }
+
+    // The loader as it was before CsvTokenizer: BufferedReader.readLine plus repeated split(",")
+    private static int legacyLoad(String filePath) throws IOException {
+        List<Item> items = new ArrayList<>();
+        List<String> logs = new ArrayList<>();
+        List<String> categoryNames = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            String currentSection = "";
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (line.endsWith("_DATA")) {
+                    currentSection = line;
+                    continue;
+                }
+                switch (currentSection) {
+                    case "CATEGORY_DATA":
+                        if (line.startsWith("CATEGORY,") && line.split(",").length >= 2) {
+                            categoryNames.add(line.split(",")[1].trim());
+                        }
+                        break;
+                    case "ITEM_DATA":
+                        if (line.startsWith("ITEM,") && line.split(",").length >= 6) {
+                            String[] parts = line.split(",");
+                            items.add(new Item(Double.parseDouble(parts[3].trim()), parts[2].trim(), parts[1].trim(), Integer.parseInt(parts[4].trim()), parts[5].trim()));
+                        }
+                        break;
+                    case "LOG_DATA":
+                        logs.add(line);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return items.size();
+    }
+}
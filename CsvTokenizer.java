@@ -0,0 +1,335 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Single-pass tokenizer for the inventory CSV files. It walks a char buffer once:
+ * lines and fields are tracked as offsets into the buffer, numbers are parsed in
+ * place, and a String is only created for a field when the caller asks for one.
+ *
+ * Every record is one line. A field may be wrapped in double quotes to carry commas,
+ * with "" standing for a literal quote, but not line breaks: the loaders split the
+ * buffer at line ends before any field is parsed. Quotes in the middle of an unquoted field are kept as they are, so
+ * names like Brake Shoe w/ Slotted Line TMX155 "HKS" read back unchanged.
+ */
+public class CsvTokenizer {
+    private final char[] buffer;
+    private final int end;
+    private int position; // Start of the next line
+
+    // Current line, trimmed
+    private int lineStart;
+    private int lineEnd;
+
+    // Current field, trimmed and without its quotes
+    private int fieldCursor;
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean fieldHasEscapedQuotes;
+    private boolean moreFields;
+
+    public CsvTokenizer(char[] buffer, int start, int end) {
+        if (start < 0 || end > buffer.length || start > end) {
+            throw new IllegalArgumentException("Invalid buffer range " + start + ".." + end);
+        }
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+    }
+
+    public CsvTokenizer(char[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Reads a whole file into a char buffer sized from the file length, so loading
+     * costs one allocation instead of one String per line.
+     * @param filePath The file to read
+     * @return A tokenizer positioned before the first line
+     */
+    public static CsvTokenizer forFile(String filePath) throws IOException {
+        File file = new File(filePath);
+        try (Reader reader = new InputStreamReader(new FileInputStream(file))) {
+            char[] chars = new char[(int) Math.min(Integer.MAX_VALUE - 8, file.length() + 1)];
+            int length = 0;
+            int read;
+            while ((read = reader.read(chars, length, chars.length - length)) != -1) {
+                length += read;
+                if (length == chars.length) {
+                    chars = Arrays.copyOf(chars, chars.length * 2);
+                }
+            }
+            return new CsvTokenizer(chars, 0, length);
+        }
+    }
+
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    // Offset just past the current line; a new tokenizer started here continues where this one is
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Advances to the next non-blank line.
+     * @return false once the end of the buffer is reached
+     */
+    public boolean nextLine() {
+        while (position < end) {
+            int start = position;
+            int newline = start;
+            while (newline < end && buffer[newline] != '\n') {
+                newline++;
+            }
+            position = newline < end ? newline + 1 : end;
+
+            int trimmedStart = start;
+            int trimmedEnd = newline;
+            while (trimmedStart < trimmedEnd && buffer[trimmedStart] <= ' ') {
+                trimmedStart++;
+            }
+            while (trimmedEnd > trimmedStart && buffer[trimmedEnd - 1] <= ' ') {
+                trimmedEnd--;
+            }
+            if (trimmedStart == trimmedEnd) {
+                continue; // Blank line
+            }
+            lineStart = trimmedStart;
+            lineEnd = trimmedEnd;
+            fieldCursor = lineStart;
+            moreFields = true;
+            return true;
+        }
+        return false;
+    }
+
+    // Offset of the first non-blank char of the current line
+    public int getLineStart() {
+        return lineStart;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public String line() {
+        return new String(buffer, lineStart, lineEnd - lineStart);
+    }
+
+    public boolean lineStartsWith(String prefix) {
+        return regionEquals(lineStart, lineEnd, prefix, true);
+    }
+
+    public boolean lineEndsWith(String suffix) {
+        int length = suffix.length();
+        return lineEnd - lineStart >= length && regionEquals(lineEnd - length, lineEnd, suffix, false);
+    }
+
+    /**
+     * Advances to the next field of the current line.
+     * @return false when the line has no more fields
+     */
+    public boolean nextField() {
+        if (!moreFields) {
+            return false;
+        }
+        int p = fieldCursor;
+        while (p < lineEnd && (buffer[p] == ' ' || buffer[p] == '\t')) {
+            p++;
+        }
+        fieldHasEscapedQuotes = false;
+        int comma;
+        if (p < lineEnd && buffer[p] == '"') {
+            int q = p + 1;
+            while (q < lineEnd) {
+                if (buffer[q] == '"') {
+                    if (q + 1 < lineEnd && buffer[q + 1] == '"') {
+                        fieldHasEscapedQuotes = true;
+                        q += 2;
+                        continue;
+                    }
+                    break;
+                }
+                q++;
+            }
+            fieldStart = p + 1;
+            fieldEnd = q; // An unterminated quote runs to the end of the line
+            comma = q;
+            while (comma < lineEnd && buffer[comma] != ',') {
+                comma++;
+            }
+        } else {
+            comma = p;
+            while (comma < lineEnd && buffer[comma] != ',') {
+                comma++;
+            }
+            int trimmedEnd = comma;
+            while (trimmedEnd > p && (buffer[trimmedEnd - 1] == ' ' || buffer[trimmedEnd - 1] == '\t')) {
+                trimmedEnd--;
+            }
+            fieldStart = p;
+            fieldEnd = trimmedEnd;
+        }
+        if (comma < lineEnd) {
+            fieldCursor = comma + 1;
+        } else {
+            moreFields = false;
+        }
+        return true;
+    }
+
+    // Skips the given number of fields; returns false if the line ran out first
+    public boolean skipFields(int count) {
+        for (int i = 0; i < count; i++) {
+            if (!nextField()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isFieldEmpty() {
+        return fieldStart == fieldEnd;
+    }
+
+    public String field() {
+        if (!fieldHasEscapedQuotes) {
+            return new String(buffer, fieldStart, fieldEnd - fieldStart);
+        }
+        StringBuilder value = new StringBuilder(fieldEnd - fieldStart);
+        for (int i = fieldStart; i < fieldEnd; i++) {
+            value.append(buffer[i]);
+            if (buffer[i] == '"' && i + 1 < fieldEnd && buffer[i + 1] == '"') {
+                i++;
+            }
+        }
+        return value.toString();
+    }
+
+    // The field as the pool's instance of its value, allocating only for a value the pool has not seen
+    public String field(StringPool pool) {
+        return fieldHasEscapedQuotes ? pool.intern(field()) : pool.intern(buffer, fieldStart, fieldEnd);
+    }
+
+    public boolean fieldEquals(String value) {
+        return !fieldHasEscapedQuotes && fieldEnd - fieldStart == value.length() && regionEquals(fieldStart, fieldEnd, value, true);
+    }
+
+    public int fieldAsInt() {
+        int p = fieldStart;
+        boolean negative = false;
+        if (p < fieldEnd && (buffer[p] == '-' || buffer[p] == '+')) {
+            negative = buffer[p] == '-';
+            p++;
+        }
+        if (p == fieldEnd) {
+            throw new NumberFormatException("Not an integer: \"" + field() + "\"");
+        }
+        long value = 0;
+        for (; p < fieldEnd; p++) {
+            char c = buffer[p];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Not an integer: \"" + field() + "\"");
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Integer out of range: \"" + field() + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Integer out of range: \"" + field() + "\"");
+        }
+        return (int) value;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Parses plain decimals such as 1250.5 in place. Both the digits and the power of
+     * ten are exact doubles there, so one division gives the correctly rounded result;
+     * anything else (exponents, very long mantissas) goes through Double.parseDouble.
+     */
+    public double fieldAsDouble() {
+        int p = fieldStart;
+        boolean negative = false;
+        if (p < fieldEnd && (buffer[p] == '-' || buffer[p] == '+')) {
+            negative = buffer[p] == '-';
+            p++;
+        }
+        long mantissa = 0;
+        boolean anyDigit = false;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean fastPath = p < fieldEnd;
+        for (; p < fieldEnd && fastPath; p++) {
+            char c = buffer[p];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                anyDigit = true;
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                fastPath = false;
+            }
+        }
+        if (fastPath && anyDigit && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(field());
+    }
+
+    private boolean regionEquals(int from, int to, String value, boolean fromStart) {
+        int length = value.length();
+        if (to - from < length) {
+            return false;
+        }
+        int offset = fromStart ? from : to - length;
+        for (int i = 0; i < length; i++) {
+            if (buffer[offset + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Quotes a value for writing when it would otherwise not read back as one field:
+     * it contains a comma, starts with a quote, or has outer spaces. A line break cannot
+     * be written at all, as it would end the record; InventoryMgt turns such values away.
+     * @throws IllegalArgumentException if the value contains a line break
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuotes = !value.isEmpty() && (value.charAt(0) == '"' || value.charAt(0) <= ' ' || value.charAt(value.length() - 1) <= ' ');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r') {
+                throw new IllegalArgumentException("Line breaks cannot be saved: \"" + value + "\"");
+            }
+            needsQuotes |= c == ',';
+        }
+        if (!needsQuotes) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tracks what changed since the binary snapshot was last written, per section
+ * (named after the data file sections) and per record. A section that only had
+ * fixed-width values change (prices, quantities, the threshold) can be patched
+ * in place; adding or removing records changes the layout and needs a rewrite.
+ */
+public class DirtyTracker {
+    public static final String CATEGORY_DATA = "CATEGORY_DATA";
+    public static final String ITEM_DATA = "ITEM_DATA";
+    public static final String LOWSTOCK_DATA = "LOWSTOCK_DATA";
+
+    private final Set<String> dirtySections = new HashSet<>();
+    private final Set<String> rewriteSections = new HashSet<>(); // Sections whose layout changed
+    private final Set<String> dirtyItems = new HashSet<>(); // Model numbers added or changed
+    private final Set<String> removedItems = new HashSet<>(); // Model numbers removed
+    private final Set<String> dirtyCategories = new HashSet<>(); // Category names
+    private boolean fullRewrite; // Record-level changes are unknown
+
+    public void markItem(String modelNumber) {
+        dirtySections.add(ITEM_DATA);
+        dirtyItems.add(modelNumber);
+    }
+
+    public void markItemAdded(String modelNumber) {
+        markRewrite(ITEM_DATA);
+        dirtyItems.add(modelNumber);
+    }
+
+    public void markItemRemoved(String modelNumber) {
+        markRewrite(ITEM_DATA);
+        removedItems.add(modelNumber);
+    }
+
+    // Changed in a way that moves it in a file layout, e.g. a new name
+    public void markItemReplaced(String modelNumber) {
+        markRewrite(ITEM_DATA);
+        dirtyItems.add(modelNumber);
+    }
+
+    public void markCategory(String categoryName) {
+        dirtySections.add(CATEGORY_DATA);
+        dirtyCategories.add(categoryName);
+    }
+
+    public void markThreshold() {
+        dirtySections.add(LOWSTOCK_DATA);
+    }
+
+    // Records were added to or removed from the section
+    public void markRewrite(String section) {
+        dirtySections.add(section);
+        rewriteSections.add(section);
+    }
+
+    // Nothing on disk can be trusted, e.g. after loading from another file
+    public void markAll() {
+        fullRewrite = true;
+        markRewrite(CATEGORY_DATA);
+        markRewrite(ITEM_DATA);
+        markThreshold();
+    }
+
+    public boolean isClean() {
+        return dirtySections.isEmpty();
+    }
+
+    public boolean isDirty(String section) {
+        return dirtySections.contains(section);
+    }
+
+    public boolean needsRewrite() {
+        return !rewriteSections.isEmpty();
+    }
+
+    public boolean isFullRewrite() {
+        return fullRewrite;
+    }
+
+    public Set<String> getRemovedItems() {
+        return removedItems;
+    }
+
+    public Set<String> getDirtyItems() {
+        return dirtyItems;
+    }
+
+    public Set<String> getDirtyCategories() {
+        return dirtyCategories;
+    }
+
+    public void clear() {
+        dirtySections.clear();
+        rewriteSections.clear();
+        dirtyItems.clear();
+        removedItems.clear();
+        dirtyCategories.clear();
+        fullRewrite = false;
+    }
+}
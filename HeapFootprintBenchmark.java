@@ -0,0 +1,70 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the heap held by a loaded catalog with pooled category and model name
+ * strings, against the same items holding their own copy of each string as the loader
+ * used to create them. Loads a synthetic CSV file, measures the retained heap, then
+ * replaces the items with per-row copies and measures again.
+ *
+ * Usage: java HeapFootprintBenchmark [itemCount]
+ * Defaults to 1000000 items. Run with a heap large enough for both copies, e.g. -Xmx2g.
+ */
+@SuppressWarnings("unchecked")
+public class HeapFootprintBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        File dataFile = File.createTempFile("inventory_heap", ".csv");
+        dataFile.deleteOnExit();
+        CsvLoadBenchmark.writeSyntheticFile(dataFile, itemCount, 0);
+
+        long baseline = usedHeap();
+        Map<String, Object> loaded = new Availability(dataFile.getPath()).readAllDataFromFile();
+        List<Item> items = (List<Item>) loaded.get("items");
+        loaded = null;
+        long pooled = usedHeap() - baseline;
+        System.out.printf("%,d items, %,d distinct category strings, %,d distinct model name strings%n",
+                items.size(), distinctInstances(items, true), distinctInstances(items, false));
+
+        // The same items with a String of their own per field, as split/trim left them
+        List<Item> copies = new ArrayList<>(items.size());
+        for (Item item : items) {
+            copies.add(new Item(item.getModelPrice(), new String(item.getModelName()), item.getModelNumber(), item.getItemQuantity(), new String(item.getItemCategory())));
+        }
+        items = null;
+        long perRow = usedHeap() - baseline;
+
+        System.out.printf("Retained heap with per-row strings: %,d KB (%d bytes per item)%n", perRow / 1024, perRow / itemCount);
+        System.out.printf("Retained heap with pooled strings:  %,d KB (%d bytes per item)%n", pooled / 1024, pooled / itemCount);
+        System.out.printf("Saved: %,d KB (%.0f%%)%n", (perRow - pooled) / 1024, 100.0 * (perRow - pooled) / perRow);
+        System.out.println("Items measured: " + copies.size()); // Keeps the copies reachable until measured
+    }
+
+    private static long distinctInstances(List<Item> items, boolean categories) {
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+        for (Item item : items) {
+            instances.add(categories ? item.getItemCategory() : item.getModelName());
+        }
+        return instances.size();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
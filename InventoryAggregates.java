@@ -0,0 +1,243 @@
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Running totals over the inventory, kept up to date by InventoryMgt on every mutation
+ * instead of being recomputed on each GUI refresh: the total worth and the categories
+ * ordered by quantity for the low-stock alerts.
+ *
+ * The total worth is summed as exact decimals, so adding and later removing an item
+ * leaves it exactly where it was, however many times that happens.
+ *
+ * Per-category figures are not kept running. Each item's price, quantity and category
+ * id sit in parallel primitive columns instead, and worth or quantity by category is a
+ * loop over those arrays rather than a walk over the Item objects. Rows are unordered:
+ * removing an item moves the last row into its place.
+ *
+ * Items and categories are filed by the values they hold when added. As neither ever
+ * changes, InventoryMgt records an edit by removing the old object and adding the one
+ * that replaces it: removeItem then addItem, removeCategory then addCategory.
+ */
+public class InventoryAggregates {
+    // Quantity first; the key keeps categories with the same quantity apart
+    private static final Comparator<Category> BY_QUANTITY = Comparator.comparingInt(Category::getCategoryQuantity)
+            .thenComparing(category -> ItemSectionLoader.categoryKey(category.getCategoryName()));
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private BigDecimal totalWorth = BigDecimal.ZERO;
+    private double totalWorthValue; // totalWorth as a double, converted once per change
+    private final TreeSet<Category> categoriesByQuantity = new TreeSet<>(BY_QUANTITY);
+
+    // One row per item
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int[] categoryIds = new int[INITIAL_CAPACITY];
+    private Item[] rowItems = new Item[INITIAL_CAPACITY]; // To find the row of the item that moves on removal
+    private int rowCount;
+    private final Map<Item, Integer> rowByItem = new IdentityHashMap<>();
+
+    // Category ids, handed out as categories are first seen and never reused
+    private final Map<String, Integer> categoryIdByKey = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>(); // By id, as first seen
+
+    public void addItem(Item item) {
+        if (rowByItem.containsKey(item)) {
+            return;
+        }
+        totalWorth = totalWorth.add(worth(item));
+        totalWorthValue = totalWorth.doubleValue();
+        if (rowCount == prices.length) {
+            grow(rowCount * 2);
+        }
+        int row = rowCount++;
+        prices[row] = item.getModelPrice();
+        quantities[row] = item.getItemQuantity();
+        categoryIds[row] = categoryId(item.getItemCategory());
+        rowItems[row] = item;
+        rowByItem.put(item, row);
+    }
+
+    // Call with the item that was added; an update removes the old item and adds its replacement
+    public void removeItem(Item item) {
+        Integer row = rowByItem.remove(item);
+        if (row == null) {
+            return;
+        }
+        totalWorth = totalWorth.subtract(worth(item));
+        totalWorthValue = totalWorth.doubleValue();
+        int last = --rowCount;
+        if (row != last) {
+            prices[row] = prices[last];
+            quantities[row] = quantities[last];
+            categoryIds[row] = categoryIds[last];
+            rowItems[row] = rowItems[last];
+            rowByItem.put(rowItems[row], row);
+        }
+        rowItems[last] = null;
+    }
+
+    public void addCategory(Category category) {
+        categoriesByQuantity.add(category);
+    }
+
+    public void removeCategory(Category category) {
+        categoriesByQuantity.remove(category);
+    }
+
+    public void rebuild(List<Item> items, List<Category> categories) {
+        totalWorth = BigDecimal.ZERO;
+        totalWorthValue = 0;
+        categoriesByQuantity.clear();
+        Arrays.fill(rowItems, 0, rowCount, null);
+        rowCount = 0;
+        rowByItem.clear();
+        categoryIdByKey.clear();
+        categoryNames.clear();
+        if (items.size() > prices.length) {
+            grow(items.size());
+        }
+        for (Item item : items) {
+            addItem(item);
+        }
+        for (Category category : categories) {
+            addCategory(category);
+        }
+    }
+
+    public double getTotalWorth() {
+        return totalWorthValue;
+    }
+
+    public double getCategoryWorth(String categoryName) {
+        Integer id = categoryIdByKey.get(ItemSectionLoader.categoryKey(categoryName));
+        return id == null ? 0 : worthByCategoryId()[id];
+    }
+
+    // Summed quantity of the category's items, as opposed to the category record's own quantity
+    public long getCategoryItemQuantity(String categoryName) {
+        Integer id = categoryIdByKey.get(ItemSectionLoader.categoryKey(categoryName));
+        return id == null ? 0 : quantityByCategoryId()[id];
+    }
+
+    // Worth of each category that has items, keyed by the category name as first seen
+    public Map<String, Double> getWorthByCategory() {
+        double[] worth = worthByCategoryId();
+        int[] itemCounts = itemCountByCategoryId();
+        Map<String, Double> byName = new LinkedHashMap<>();
+        for (int id = 0; id < worth.length; id++) {
+            if (itemCounts[id] > 0) {
+                byName.put(categoryNames.get(id), worth[id]);
+            }
+        }
+        return byName;
+    }
+
+    // Indexed by category id; locals so the loop reads no fields
+    private double[] worthByCategoryId() {
+        double[] prices = this.prices;
+        int[] quantities = this.quantities;
+        int[] categoryIds = this.categoryIds;
+        double[] worth = new double[categoryNames.size()];
+        for (int row = 0; row < rowCount; row++) {
+            worth[categoryIds[row]] += prices[row] * quantities[row];
+        }
+        return worth;
+    }
+
+    private long[] quantityByCategoryId() {
+        int[] quantities = this.quantities;
+        int[] categoryIds = this.categoryIds;
+        long[] totals = new long[categoryNames.size()];
+        for (int row = 0; row < rowCount; row++) {
+            totals[categoryIds[row]] += quantities[row];
+        }
+        return totals;
+    }
+
+    private int[] itemCountByCategoryId() {
+        int[] categoryIds = this.categoryIds;
+        int[] counts = new int[categoryNames.size()];
+        for (int row = 0; row < rowCount; row++) {
+            counts[categoryIds[row]]++;
+        }
+        return counts;
+    }
+
+    // Categories with a quantity below the threshold, lowest first
+    public List<Category> getCategoriesBelow(int threshold) {
+        List<Category> below = new ArrayList<>();
+        for (Category category : categoriesByQuantity) {
+            if (category.getCategoryQuantity() >= threshold) {
+                break;
+            }
+            below.add(category);
+        }
+        return below;
+    }
+
+    /**
+     * Compares the running totals with a full recompute over the given lists.
+     * @return A description of the first difference, or null if everything matches
+     */
+    public String verify(List<Item> items, List<Category> categories) {
+        InventoryAggregates expected = new InventoryAggregates();
+        expected.rebuild(items, categories);
+        if (expected.totalWorth.compareTo(totalWorth) != 0) {
+            return "total worth " + totalWorth + " should be " + expected.totalWorth;
+        }
+        if (rowCount != items.size() || rowByItem.size() != items.size()) {
+            return rowCount + " rows for " + rowByItem.size() + " items, should be " + items.size();
+        }
+        for (Item item : items) {
+            Integer row = rowByItem.get(item);
+            Integer categoryId = categoryIdByKey.get(ItemSectionLoader.categoryKey(item.getItemCategory()));
+            if (row == null || rowItems[row] != item || prices[row] != item.getModelPrice() || quantities[row] != item.getItemQuantity()
+                    || categoryId == null || categoryIds[row] != categoryId) {
+                return "row " + row + " does not hold item " + item.getModelNumber();
+            }
+        }
+        if (!new ArrayList<>(expected.categoriesByQuantity).equals(new ArrayList<>(categoriesByQuantity))) {
+            return "categories by quantity " + names(categoriesByQuantity) + " should be " + names(expected.categoriesByQuantity);
+        }
+        return null;
+    }
+
+    private int categoryId(String categoryName) {
+        String key = ItemSectionLoader.categoryKey(categoryName);
+        Integer id = categoryIdByKey.get(key);
+        if (id == null) {
+            id = categoryNames.size();
+            categoryIdByKey.put(key, id);
+            categoryNames.add(categoryName);
+        }
+        return id;
+    }
+
+    private void grow(int capacity) {
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        rowItems = Arrays.copyOf(rowItems, capacity);
+    }
+
+    private static BigDecimal worth(Item item) {
+        return BigDecimal.valueOf(item.getModelPrice()).multiply(BigDecimal.valueOf(item.getItemQuantity()));
+    }
+
+    private static List<String> names(TreeSet<Category> categories) {
+        List<String> names = new ArrayList<>();
+        for (Category category : categories) {
+            names.add(category.getCategoryName() + "=" + category.getCategoryQuantity());
+        }
+        return names;
+    }
+}
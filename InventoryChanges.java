@@ -0,0 +1,54 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of item additions, updates and removals for InventoryMgt.applyChanges. The
+ * changes apply in the order they were added, and either all of them apply or, if any
+ * is invalid against the inventory as the earlier ones leave it, none do.
+ */
+public class InventoryChanges {
+    enum Type { ADD, UPDATE, REMOVE }
+
+    static class Change {
+        final Type type;
+        final String modelNumber;
+        final Item item; // The new details; null for a removal
+
+        Change(Type type, String modelNumber, Item item) {
+            this.type = type;
+            this.modelNumber = modelNumber;
+            this.item = item;
+        }
+    }
+
+    private final List<Change> changes = new ArrayList<>();
+
+    public InventoryChanges add(Item item) {
+        changes.add(new Change(Type.ADD, item == null ? null : item.getModelNumber(), item));
+        return this;
+    }
+
+    // Replaces the details of the item with this model number, as InventoryMgt.updateItem does
+    public InventoryChanges update(String modelNumber, Item updatedItem) {
+        changes.add(new Change(Type.UPDATE, modelNumber, updatedItem));
+        return this;
+    }
+
+    public InventoryChanges remove(String modelNumber) {
+        changes.add(new Change(Type.REMOVE, modelNumber, null));
+        return this;
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+}
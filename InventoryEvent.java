@@ -0,0 +1,149 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What one operation on InventoryMgt changed, as a list of typed changes in the order
+ * they were made: items added, updated and removed, category records created, changed
+ * and removed, and the low stock threshold. A reload from disk carries no changes and
+ * reports everything as changed instead. The version is the inventory's version once
+ * the operation finished (see InventoryMgt.getVersion).
+ *
+ * The items and categories in a change are the immutable objects InventoryMgt shares
+ * with its snapshots, so they can be kept and compared by identity.
+ */
+public class InventoryEvent {
+    public abstract static class Change {
+    }
+
+    public static final class ItemAdded extends Change {
+        private final Item item;
+
+        ItemAdded(Item item) {
+            this.item = item;
+        }
+
+        public Item getItem() {
+            return item;
+        }
+    }
+
+    public static final class ItemUpdated extends Change {
+        private final Item oldItem;
+        private final Item newItem;
+
+        ItemUpdated(Item oldItem, Item newItem) {
+            this.oldItem = oldItem;
+            this.newItem = newItem;
+        }
+
+        public Item getOldItem() {
+            return oldItem;
+        }
+
+        public Item getNewItem() {
+            return newItem;
+        }
+    }
+
+    public static final class ItemRemoved extends Change {
+        private final Item item;
+
+        ItemRemoved(Item item) {
+            this.item = item;
+        }
+
+        public Item getItem() {
+            return item;
+        }
+    }
+
+    // A category record created (no old category), changed, or removed (no new category)
+    public static final class CategoryChanged extends Change {
+        private final Category oldCategory;
+        private final Category newCategory;
+
+        CategoryChanged(Category oldCategory, Category newCategory) {
+            this.oldCategory = oldCategory;
+            this.newCategory = newCategory;
+        }
+
+        public Category getOldCategory() {
+            return oldCategory;
+        }
+
+        public Category getNewCategory() {
+            return newCategory;
+        }
+
+        public String getCategoryName() {
+            return newCategory != null ? newCategory.getCategoryName() : oldCategory.getCategoryName();
+        }
+    }
+
+    public static final class ThresholdChanged extends Change {
+        private final int oldThreshold;
+        private final int newThreshold;
+
+        ThresholdChanged(int oldThreshold, int newThreshold) {
+            this.oldThreshold = oldThreshold;
+            this.newThreshold = newThreshold;
+        }
+
+        public int getOldThreshold() {
+            return oldThreshold;
+        }
+
+        public int getNewThreshold() {
+            return newThreshold;
+        }
+    }
+
+    private final InventoryMgt source;
+    private final long version;
+    private final List<Change> changes;
+    private final boolean reload;
+    private boolean itemsChanged;
+    private boolean categoriesChanged;
+    private boolean thresholdChanged;
+
+    InventoryEvent(InventoryMgt source, long version, List<Change> changes, boolean reload) {
+        this.source = source;
+        this.version = version;
+        this.changes = Collections.unmodifiableList(changes);
+        this.reload = reload;
+        for (Change change : changes) {
+            itemsChanged |= change instanceof ItemAdded || change instanceof ItemUpdated || change instanceof ItemRemoved;
+            categoriesChanged |= change instanceof CategoryChanged;
+            thresholdChanged |= change instanceof ThresholdChanged;
+        }
+    }
+
+    public InventoryMgt getSource() {
+        return source;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public boolean itemsChanged() {
+        return reload || itemsChanged;
+    }
+
+    public boolean categoriesChanged() {
+        return reload || categoriesChanged;
+    }
+
+    public boolean thresholdChanged() {
+        return reload || thresholdChanged;
+    }
+
+    // The whole inventory was read back from disk; every view needs redrawing
+    public boolean isReload() {
+        return reload;
+    }
+}
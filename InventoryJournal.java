@@ -0,0 +1,177 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only write-ahead journal that sits next to the inventory data file.
+ * Every mutation in InventoryMgt appends one small typed record here instead of
+ * rewriting the whole CSV. On load the records are replayed on top of the last
+ * snapshot, and the journal is cleared whenever a full snapshot (checkpoint) is written.
+ *
+ * Record types:
+ *   BASE,snapshotId (always first: the snapshot this journal extends)
+ *   ITEM_ADD,modelNumber,modelName,modelPrice,itemQuantity,itemCategory
+ *   ITEM_REMOVE,modelNumber
+ *   ITEM_UPDATE,modelNumber,modelName,modelPrice,itemQuantity,itemCategory
+ *   CATEGORY_ADD,categoryName,categoryQuantity
+ *   CATEGORY_REMOVE,categoryName
+ *   CATEGORY_QTY,categoryName,categoryQuantity
+ *   THRESHOLD,lowStockThreshold
+ *   LOG_ENTRY,(raw transaction log line)
+ */
+public class InventoryJournal {
+    public static final String ITEM_ADD = "ITEM_ADD";
+    public static final String ITEM_REMOVE = "ITEM_REMOVE";
+    public static final String ITEM_UPDATE = "ITEM_UPDATE";
+    public static final String CATEGORY_ADD = "CATEGORY_ADD";
+    public static final String CATEGORY_REMOVE = "CATEGORY_REMOVE";
+    public static final String CATEGORY_QTY = "CATEGORY_QTY";
+    public static final String THRESHOLD = "THRESHOLD";
+    public static final String LOG_ENTRY = "LOG_ENTRY";
+    public static final String BASE = "BASE";
+    public static final String NO_SNAPSHOT = "NONE"; // Base id used before any identified snapshot exists
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private String journalFilePath;
+    private BufferedWriter writer;
+    private int recordCount;
+    private String baseSnapshotId = NO_SNAPSHOT;
+
+    public InventoryJournal(String dataFilePath) {
+        this.journalFilePath = dataFilePath + JOURNAL_SUFFIX;
+    }
+
+    public String getJournalFilePath() {
+        return journalFilePath;
+    }
+
+    // Points the journal at the data file's new location; the old journal is left untouched
+    public void setDataFilePath(String dataFilePath) {
+        close();
+        this.journalFilePath = dataFilePath + JOURNAL_SUFFIX;
+        this.recordCount = 0;
+    }
+
+    // Snapshot that new records are written on top of; recorded as the journal's first line
+    public void setBaseSnapshotId(String snapshotId) {
+        this.baseSnapshotId = snapshotId == null ? NO_SNAPSHOT : snapshotId;
+    }
+
+    public String getBaseSnapshotId() {
+        return baseSnapshotId;
+    }
+
+    // Number of records appended since the last checkpoint (including replayed ones)
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public void append(String... fields) {
+        StringBuilder record = new StringBuilder();
+        boolean rawPayload = LOG_ENTRY.equals(fields[0]); // The log line is stored verbatim as the rest of the record
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                record.append(',');
+            }
+            record.append(rawPayload ? fields[i] : CsvTokenizer.quote(fields[i]));
+        }
+        try {
+            if (writer == null) {
+                File journalFile = new File(journalFilePath);
+                boolean newJournal = !journalFile.exists() || journalFile.length() == 0;
+                writer = new BufferedWriter(new FileWriter(journalFile, true));
+                if (newJournal) {
+                    writer.write(BASE + "," + baseSnapshotId);
+                    writer.newLine();
+                }
+            }
+            writer.write(record.toString());
+            writer.newLine();
+            recordCount++; // Buffered until flush(), so a burst of records costs one write (group commit)
+        } catch (IOException e) {
+            System.err.println("Error appending to journal " + journalFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Pushes buffered records to disk; called by the background writer once per save window
+    public void flush() {
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                System.err.println("Error flushing journal " + journalFilePath + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Reads every record currently in the journal, starting with its BASE record when
+     * present. LOG_ENTRY records keep the raw log line as their second field; all other
+     * records are split into their (possibly quoted) fields.
+     */
+    public List<String[]> readRecords() {
+        flush();
+        List<String[]> records = new ArrayList<>();
+        File journalFile = new File(journalFilePath);
+        if (!journalFile.exists()) {
+            recordCount = 0;
+            return records;
+        }
+        try {
+            CsvTokenizer tokenizer = CsvTokenizer.forFile(journalFilePath);
+            List<String> fields = new ArrayList<>();
+            while (tokenizer.nextLine()) {
+                if (tokenizer.lineStartsWith(LOG_ENTRY + ",")) {
+                    records.add(new String[]{LOG_ENTRY, tokenizer.line().substring(LOG_ENTRY.length() + 1)});
+                    continue;
+                }
+                fields.clear();
+                while (tokenizer.nextField()) {
+                    fields.add(tokenizer.field());
+                }
+                records.add(fields.toArray(new String[0]));
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading journal " + journalFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        recordCount = records.size();
+        if (recordCount > 0 && BASE.equals(records.get(0)[0])) {
+            recordCount--;
+        }
+        return records;
+    }
+
+    /**
+     * Called after a checkpoint has been written: the snapshot now holds everything the
+     * journal did. If the process dies before this runs, the stale journal still names
+     * the old snapshot in its BASE record and is discarded on the next load.
+     * @param snapshotId Id of the snapshot that was just written
+     */
+    public void reset(String snapshotId) {
+        close();
+        File journalFile = new File(journalFilePath);
+        if (journalFile.exists() && !journalFile.delete()) {
+            System.err.println("Could not clear journal " + journalFilePath);
+        }
+        recordCount = 0;
+        setBaseSnapshotId(snapshotId);
+    }
+
+    public void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing journal " + journalFilePath + ": " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Told about every operation that changes an InventoryMgt. Called on the thread that
+ * made the change, after the inventory is unlocked, so a listener may read the
+ * inventory but should hand anything slow, or anything touching Swing, to another
+ * thread.
+ */
+public interface InventoryListener {
+    void inventoryChanged(InventoryEvent event);
+}
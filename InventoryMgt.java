@@ -4,25 +4,79 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.text.SimpleDateFormat;
 import java.io.File;
 import java.util.Map; // Import Map
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
+/**
+ * The inventory and everything kept alongside it. Safe to share between threads: any
+ * number of readers run together, a writer has the inventory to itself. Readers get
+ * immutable, versioned snapshots (see getSnapshot) that later changes do not touch.
+ *
+ * Items and categories are never changed once they are in the inventory, since
+ * snapshots share them: an edit puts a new object in place of the old one.
+ */
 public class InventoryMgt {
+    private final StampedLock lock = new StampedLock(); // Not reentrant: public methods lock, private helpers assume the lock is held
+    private volatile InventorySnapshot published; // Replaced by every operation that changed the inventory, as it unlocks
+    private volatile long version; // Bumped by every change, under the write lock
+    private List<InventoryEvent.Change> pendingChanges = new ArrayList<>(); // Made by the operation holding the write lock
+    private boolean pendingReload;
+    private long writeCount; // Bumped as each writer releases the lock, so a load can tell whether one got in while it read the files
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
     private List<Item> inventoryItems;
+    private Map<String, Integer> itemPositions = new HashMap<>(); // Primary key index to the list position, keyed by modelNumberKey()
     private List<Category> itemCategories;
-    private List<String> transactionLogs;
-    private Availability availabilityChecker;
+    // The indexes are replaced, not rebuilt, by a load, which builds the new ones before it takes the write lock
+    private CategoryIndex categoryIndex = new CategoryIndex(); // Category key to its record and items
+    private SearchIndex searchIndex = new SearchIndex(); // Tokens of names, numbers and categories
+    private InventoryAggregates aggregates = new InventoryAggregates(); // Worth and quantity totals, kept as items change
+    private ItemRangeIndex<Double> itemsByPrice = new ItemRangeIndex<>(Item::getModelPrice);
+    private ItemRangeIndex<Integer> itemsByQuantity = new ItemRangeIndex<>(Item::getItemQuantity);
+    private List<String> transactionLogs; // Only the most recent entries; the full history lives in the store
+    private Availability availabilityChecker; // Reads and writes the CSV export
+    private InventoryStore store; // Storage backend; the same object as availabilityChecker when it is the CSV
     private String dataFilePath; // This will now store the full file path
     private int lowStockThreshold; // Default low stock threshold will be read from file
+    private InventoryJournal journal; // Append-only record of mutations since the last full snapshot
+    private boolean journalEnabled = true; // When false, every save rewrites the whole data file
+    private final SaveScheduler saveScheduler; // Coalesces saveData() calls onto the writer thread
+    private final DirtyTracker dirtyTracker = new DirtyTracker(); // Changes not yet in the binary snapshot
+    private boolean exportStale; // Changes not yet in the CSV export
 
     private static final String INVENTORY_DATA_FILENAME = "inventory_data.csv"; // New constant
+    private static final int CHECKPOINT_INTERVAL = 500; // Journal records before the data file is rewritten
+    private static final int RECENT_LOG_ENTRIES = 200; // Log entries kept in memory
+    private static final IntConsumer NO_PROGRESS = percent -> { };
+    public static final int LOAD_COMMIT_PROGRESS = 80; // Reported as a load starts replacing the inventory; it can no longer be cancelled once that call returns
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
     public InventoryMgt() {
+        this(NO_PROGRESS);
+    }
+
+    /**
+     * Loads the inventory like the no-argument constructor, reporting how far the load has
+     * got; meant to run off the event dispatch thread, as the load reads the data files.
+     * @param loadProgress Receives the percentage done, from 0 to 100, on the loading thread
+     */
+    public InventoryMgt(IntConsumer loadProgress) {
         inventoryItems = new ArrayList<>();
         itemCategories = new ArrayList<>();
         transactionLogs = new ArrayList<>();
@@ -30,30 +84,51 @@ public class InventoryMgt {
         // Initialize Availability with the default path (current working directory)
         this.dataFilePath = System.getProperty("user.dir") + File.separator + INVENTORY_DATA_FILENAME;
         this.availabilityChecker = new Availability(this.dataFilePath); 
+        this.store = createStore(System.getProperty(InventoryStore.STORE_PROPERTY, InventoryStore.DEFAULT_STORE));
+        this.journalEnabled = !store.isTransactional(); // A database keeps its own log of changes
+        this.journal = new InventoryJournal(this.dataFilePath);
+        this.saveScheduler = new SaveScheduler(this::writePendingChanges);
 
         // Load all data, including potentially stored dataFilePath and lowStockThreshold
-        loadData(); 
+        loadData(loadProgress);
+    }
+
+    // A store that cannot be opened fails the constructor: falling back to another would save where the next run does not look
+    private InventoryStore createStore(String storeType) {
+        InventoryStore created = InventoryStore.create(storeType, dataFilePath);
+        if (created instanceof Availability) {
+            availabilityChecker = (Availability) created; // One object for the CSV, whether export or store
+        }
+        return created;
     }
 
     // New methods for low stock threshold
     public int getLowStockThreshold() {
-        return lowStockThreshold;
+        return readOptimistic(() -> lowStockThreshold);
     }
 
     public void setLowStockThreshold(int lowStockThreshold) {
         if (lowStockThreshold < 0) {
             throw new IllegalArgumentException("Low stock threshold cannot be negative.");
         }
-        int oldThreshold = this.lowStockThreshold; // Capture old value for logging
-        this.lowStockThreshold = lowStockThreshold;
-        // Save all data, including the updated low stock threshold
-        saveData();
-        logTransaction("LOWSTOCK_SET", "", "", lowStockThreshold, "", oldThreshold); // Log the change
+        long stamp = lock.writeLock();
+        try {
+            int oldThreshold = this.lowStockThreshold; // Capture old value for logging
+            this.lowStockThreshold = lowStockThreshold;
+            recordChange(new InventoryEvent.ThresholdChanged(oldThreshold, lowStockThreshold));
+            journalRecord(InventoryJournal.THRESHOLD, String.valueOf(lowStockThreshold));
+            // Save all data, including the updated low stock threshold
+            saveData();
+            appendLogEntry("LOWSTOCK_SET", "", "", lowStockThreshold, "", oldThreshold); // Log the change
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     // New methods for data file path
     // This method now accepts a folderPath and constructs the full file path
     public void setDataFilePath(String folderPath) {
+        long stamp = lock.writeLock();
         try {
             if (folderPath == null || folderPath.trim().isEmpty()) {
                 throw new IllegalArgumentException("Folder path cannot be null or empty.");
@@ -61,139 +136,424 @@ public class InventoryMgt {
             // Construct the full file path from the selected folder
             this.dataFilePath = folderPath + File.separator + INVENTORY_DATA_FILENAME;
             this.availabilityChecker.setDataFilePath(this.dataFilePath); // Update Availability's full file path
-            saveData(); // Save all data with the new file path
+            setStorePath(this.dataFilePath); // The store brings the transaction history along
+            this.journal.setDataFilePath(this.dataFilePath);
+            writeExport(); // Write full snapshots at the new location so its journal starts empty
         } catch (Exception e) {
             System.err.println("Error setting data file path: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            unlockWrite(stamp);
         }
     }
 
     // Getter for the current full data file path
     public String getDataFilePath() {
-        return this.dataFilePath;
+        return readOptimistic(() -> this.dataFilePath);
     }
 
+    // The items of the current snapshot; the list and its items never change
     public List<Item> getInventoryItems() {
-        return inventoryItems;
+        return getSnapshot().getItems();
+    }
+
+    /**
+     * The inventory as of the latest finished operation. Never takes the lock: the writer
+     * publishes a copy once per operation as it unlocks, so a reader is not held up behind
+     * a long write such as a checkpoint.
+     */
+    public InventorySnapshot getSnapshot() {
+        return published;
+    }
+
+    // Changes whenever the inventory does, so a view can tell it is already up to date
+    public long getVersion() {
+        return version;
     }
 
     public Item findItemByModelNumber(String modelNumber) {
         if (modelNumber == null || modelNumber.trim().isEmpty()) {
             throw new IllegalArgumentException("Model number cannot be null or empty");
         }
-        for (Item item : inventoryItems) {
-            if (item.getModelNumber().equalsIgnoreCase(modelNumber)) {
-                return item;
+        return read(() -> lookupItem(modelNumber));
+    }
+
+    private Item lookupItem(String modelNumber) {
+        Integer position = itemPositions.get(modelNumberKey(modelNumber));
+        return position == null ? null : inventoryItems.get(position);
+    }
+
+    // Runs a read under the shared lock, alongside any other readers
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Publishes a snapshot if the operation changed anything, releases the write lock, then tells the listeners what changed
+    private void unlockWrite(long stamp) {
+        if (published == null || published.getVersion() != version) {
+            published = new InventorySnapshot(version, inventoryItems, itemCategories, lowStockThreshold, aggregates.getTotalWorth());
+        }
+        InventoryEvent event = null;
+        if (!pendingChanges.isEmpty() || pendingReload) {
+            event = new InventoryEvent(this, version, pendingChanges, pendingReload);
+            pendingChanges = new ArrayList<>();
+            pendingReload = false;
+        }
+        writeCount++;
+        lock.unlockWrite(stamp);
+        if (event != null) {
+            fireInventoryChanged(event);
+        }
+    }
+
+    // Changes are only collected while someone is listening
+    private void recordChange(InventoryEvent.Change change) {
+        if (!listeners.isEmpty()) {
+            pendingChanges.add(change);
+        }
+    }
+
+    /**
+     * Adds a listener called on the thread that made each change, once the inventory is
+     * unlocked. Wrap it in a BatchingInventoryListener to have it called on another
+     * thread, or on the Swing thread, with events merged while it waits.
+     */
+    public void addInventoryListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeInventoryListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireInventoryChanged(InventoryEvent event) {
+        for (InventoryListener listener : listeners) {
+            try {
+                listener.inventoryChanged(event);
+            } catch (Exception e) {
+                System.err.println("Error in inventory listener: " + e.getMessage());
+                e.printStackTrace();
             }
         }
-        return null;
+    }
+
+    // For reads of a single field: no lock at all unless a writer got in meanwhile
+    private <T> T readOptimistic(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        T value = reader.get();
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        return read(reader);
+    }
+
+    // Model numbers match ignoring case and surrounding spaces, for lookups, removals and duplicate checks alike
+    static String modelNumberKey(String modelNumber) {
+        return modelNumber.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Adds to the list and the indexes together; every mutation path goes through here, replaceInItems or removeFromItems
+    private void addToItems(Item item) {
+        itemPositions.put(modelNumberKey(item.getModelNumber()), inventoryItems.size());
+        inventoryItems.add(item);
+        indexItem(item);
+        recordChange(new InventoryEvent.ItemAdded(item));
+    }
+
+    private Item removeFromItems(String modelNumber) {
+        Integer position = itemPositions.remove(modelNumberKey(modelNumber));
+        Item item = null;
+        if (position != null) {
+            item = inventoryItems.remove((int) position);
+            renumberItems(position);
+            unindexItem(item);
+            recordChange(new InventoryEvent.ItemRemoved(item));
+        }
+        return item;
+    }
+
+    // Puts an edited copy in the item's place; the old object stays as it was for the snapshots holding it
+    private Item replaceInItems(Item item, String modelName, double modelPrice, int itemQuantity, String itemCategory) {
+        Item replacement = newItem(modelPrice, modelName, item.getModelNumber(), itemQuantity, itemCategory);
+        inventoryItems.set(itemPositions.get(modelNumberKey(item.getModelNumber())), replacement);
+        unindexItem(item);
+        indexItem(replacement);
+        recordChange(new InventoryEvent.ItemUpdated(item, replacement));
+        return replacement;
+    }
+
+    // Positions shift down after a removal; everything from the first removed position is filed again
+    private void renumberItems(int fromPosition) {
+        for (int i = fromPosition; i < inventoryItems.size(); i++) {
+            itemPositions.put(modelNumberKey(inventoryItems.get(i).getModelNumber()), i);
+        }
+    }
+
+    // Items are immutable, so every one the manager creates is built here to share the category's String rather than keep a copy per item
+    private Item newItem(double modelPrice, String modelName, String modelNumber, int itemQuantity, String itemCategory) {
+        Category category = categoryIndex.getCategory(itemCategory);
+        if (category != null && category.getCategoryName().equals(itemCategory)) {
+            itemCategory = category.getCategoryName();
+        }
+        return new Item(modelPrice, modelName, modelNumber, itemQuantity, itemCategory);
+    }
+
+    private void indexItem(Item item) {
+        categoryIndex.addItem(item);
+        searchIndex.add(item);
+        indexValues(item);
+    }
+
+    private void unindexItem(Item item) {
+        categoryIndex.removeItem(item);
+        searchIndex.remove(item);
+        unindexValues(item);
+    }
+
+    private void addToCategories(Category category) {
+        itemCategories.add(category);
+        categoryIndex.putCategory(category);
+        aggregates.addCategory(category);
+        recordChange(new InventoryEvent.CategoryChanged(null, category));
+    }
+
+    private Category removeFromCategories(String categoryName) {
+        Category category = categoryIndex.removeCategory(categoryName);
+        if (category != null) {
+            itemCategories.remove(category);
+            aggregates.removeCategory(category);
+            recordChange(new InventoryEvent.CategoryChanged(category, null));
+        }
+        return category;
+    }
+
+    // Replaces the category with a copy holding the new quantity, as items are replaced
+    private Category setCategoryQuantity(Category category, int quantity) {
+        Category replacement = new Category(category.getCategoryName(), quantity);
+        itemCategories.set(itemCategories.indexOf(category), replacement);
+        categoryIndex.putCategory(replacement);
+        aggregates.removeCategory(category);
+        aggregates.addCategory(replacement);
+        recordChange(new InventoryEvent.CategoryChanged(category, replacement));
+        return replacement;
+    }
+
+    // Take an item out of everything that is filed by its values, as it is removed or replaced
+    private void unindexValues(Item item) {
+        aggregates.removeItem(item);
+        itemsByPrice.remove(item);
+        itemsByQuantity.remove(item);
+    }
+
+    private void indexValues(Item item) {
+        aggregates.addItem(item);
+        itemsByPrice.add(item);
+        itemsByQuantity.add(item);
+    }
+
+    /**
+     * Every index over one list of items and categories, built from scratch. Building them
+     * touches nothing of the inventory's, so a load does it before taking the write lock.
+     */
+    private static class Indexes {
+        final CategoryIndex categoryIndex = new CategoryIndex();
+        final SearchIndex searchIndex = new SearchIndex();
+        final InventoryAggregates aggregates = new InventoryAggregates();
+        final ItemRangeIndex<Double> itemsByPrice = new ItemRangeIndex<>(Item::getModelPrice);
+        final ItemRangeIndex<Integer> itemsByQuantity = new ItemRangeIndex<>(Item::getItemQuantity);
+        final Map<String, Integer> itemPositions;
+
+        Indexes(List<Item> items, List<Category> categories) {
+            categoryIndex.rebuild(items, categories);
+            searchIndex.rebuild(items);
+            aggregates.rebuild(items, categories);
+            itemsByPrice.rebuild(items);
+            itemsByQuantity.rebuild(items);
+            itemPositions = new HashMap<>(Math.max(16, items.size() * 4 / 3 + 1));
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                Integer duplicate = itemPositions.put(modelNumberKey(item.getModelNumber()), i);
+                if (duplicate != null) {
+                    System.err.println("Duplicate model number in data file, the later item wins lookups: " + item.getModelNumber());
+                }
+            }
+        }
+    }
+
+    private void useIndexes(Indexes indexes) {
+        categoryIndex = indexes.categoryIndex;
+        searchIndex = indexes.searchIndex;
+        aggregates = indexes.aggregates;
+        itemsByPrice = indexes.itemsByPrice;
+        itemsByQuantity = indexes.itemsByQuantity;
+        itemPositions = indexes.itemPositions;
     }
 
     public Category findCategoryByName(String categoryName) {
         if (categoryName == null || categoryName.trim().isEmpty()) {
             throw new IllegalArgumentException("Category name cannot be null or empty");
         }
-        for (Category category : itemCategories) {
-            if (category.getCategoryName().equalsIgnoreCase(categoryName)) {
-                return category;
-            }
+        return read(() -> categoryIndex.getCategory(categoryName));
+    }
+
+    // The items filed under a category, matched ignoring case like findCategoryByName
+    public List<Item> getItemsInCategory(String categoryName) {
+        if (categoryName == null || categoryName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Category name cannot be null or empty");
         }
-        return null;
+        return read(() -> new ArrayList<>(categoryIndex.getItems(categoryName)));
     }
 
     public void addItem(Item item) {
+        long stamp = lock.writeLock();
         try {
             if (item == null) {
                 throw new IllegalArgumentException("Item cannot be null");
             }
-            if (findItemByModelNumber(item.getModelNumber()) != null) {
+            checkSingleLine(item);
+            if (lookupItem(item.getModelNumber()) != null) {
                 throw new IllegalStateException("Item with model number " + item.getModelNumber() + " already exists");
             }
-            inventoryItems.add(item);
-            updateCategoryQuantity(item.getItemCategory(), item.getItemQuantity());
+            item = newItem(item.getModelPrice(), item.getModelName(), item.getModelNumber(), item.getItemQuantity(), item.getItemCategory()); // Rebuilt so the category String is shared
+            addToItems(item);
+            journalRecord(InventoryJournal.ITEM_ADD, item.getModelNumber(), item.getModelName(), String.valueOf(item.getModelPrice()), String.valueOf(item.getItemQuantity()), item.getItemCategory());
+            changeCategoryQuantity(item.getItemCategory(), item.getItemQuantity());
             saveData(); // Save data after adding an item
         } catch (Exception e) {
             System.err.println("Error adding item: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            unlockWrite(stamp);
         }
     }
 
     public void removeItemByNumber(String modelNumber) {
+        long stamp = lock.writeLock();
         try {
             if (modelNumber == null || modelNumber.trim().isEmpty()) {
                 throw new IllegalArgumentException("Model number cannot be null or empty");
             }
-            Iterator<Item> iterator = inventoryItems.iterator();
-            boolean found = false;
-            Item removedItem = null; // To store the removed item for logging
-            while (iterator.hasNext()) {
-                Item item = iterator.next();
-                if (item.getModelNumber().equals(modelNumber)) {
-                    updateCategoryQuantity(item.getItemCategory(), -item.getItemQuantity());
-                    iterator.remove();
-                    found = true;
-                    removedItem = item;
-                    removeCategoryIfEmpty(item.getItemCategory());
-                    break;
-                }
-            }
-            if (!found) {
+            Item removedItem = removeFromItems(modelNumber);
+            if (removedItem == null) {
                 throw new IllegalStateException("Item with model number " + modelNumber + " not found");
             }
+            changeCategoryQuantity(removedItem.getItemCategory(), -removedItem.getItemQuantity());
+            journalRecord(InventoryJournal.ITEM_REMOVE, removedItem.getModelNumber());
+            removeCategoryIfEmpty(removedItem.getItemCategory());
             saveData(); // Save data after removing an item
-            if (removedItem != null) {
-                logTransaction("REMOVE", removedItem.getModelName(), removedItem.getModelNumber(), removedItem.getItemQuantity(), removedItem.getItemCategory(), 0);
-            }
+            appendLogEntry("REMOVE", removedItem.getModelName(), removedItem.getModelNumber(), removedItem.getItemQuantity(), removedItem.getItemCategory(), 0);
         } catch (Exception e) {
             System.err.println("Error removing item by number: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the details of an existing item, keeping its model number and its place in
+     * the list. A price or quantity change is saved by patching the snapshot in place.
+     * @param modelNumber The model number of the item to update
+     * @param updatedItem The new details; its model number is ignored
+     */
+    public void updateItem(String modelNumber, Item updatedItem) {
+        saveScheduler.beginOperation();
+        long stamp = lock.writeLock();
+        try {
+            if (updatedItem == null) {
+                throw new IllegalArgumentException("Item cannot be null");
+            }
+            if (modelNumber == null || modelNumber.trim().isEmpty()) {
+                throw new IllegalArgumentException("Model number cannot be null or empty");
+            }
+            checkSingleLine(updatedItem);
+            Item item = lookupItem(modelNumber);
+            if (item == null) {
+                throw new IllegalStateException("Item with model number " + modelNumber + " not found");
+            }
+            String oldCategory = item.getItemCategory();
+            int oldQuantity = item.getItemQuantity();
+            markItemUpdated(item, updatedItem.getModelName(), updatedItem.getItemCategory());
+            item = replaceInItems(item, updatedItem.getModelName(), updatedItem.getModelPrice(), updatedItem.getItemQuantity(), updatedItem.getItemCategory());
+            journalRecord(InventoryJournal.ITEM_UPDATE, item.getModelNumber(), item.getModelName(), String.valueOf(item.getModelPrice()), String.valueOf(item.getItemQuantity()), item.getItemCategory());
+            if (!oldCategory.equals(item.getItemCategory())) {
+                changeCategoryQuantity(oldCategory, -oldQuantity);
+                changeCategoryQuantity(item.getItemCategory(), item.getItemQuantity());
+                removeCategoryIfEmpty(oldCategory);
+            } else if (oldQuantity != item.getItemQuantity()) {
+                changeCategoryQuantity(oldCategory, item.getItemQuantity() - oldQuantity);
+            }
+            saveData();
+            appendLogEntry("UPDATE", item.getModelName(), item.getModelNumber(), item.getItemQuantity(), item.getItemCategory(), oldQuantity);
+        } catch (Exception e) {
+            System.err.println("Error updating item: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            unlockWrite(stamp);
+            saveScheduler.endOperation();
+        }
+    }
+
+    // Only price and quantity live in fixed-width columns; a new name or category needs the items rewritten
+    private void markItemUpdated(Item item, String newModelName, String newCategory) {
+        if (item.getModelName().equals(newModelName) && item.getItemCategory().equals(newCategory)) {
+            dirtyTracker.markItem(item.getModelNumber());
+        } else {
+            dirtyTracker.markItemReplaced(item.getModelNumber());
         }
     }
 
     public void removeItemByCategory(String categoryName) {
+        saveScheduler.beginOperation(); // All removals below are persisted as one write
+        long stamp = lock.writeLock();
         try {
             if (categoryName == null || categoryName.trim().isEmpty()) {
                 throw new IllegalArgumentException("Category cannot be null or empty");
             }
-            Iterator<Item> iterator = inventoryItems.iterator();
-            boolean found = false;
-            List<String> categoriesToCheck = new ArrayList<>(); // Collect categories to check after removal
-            List<Item> removedItems = new ArrayList<>(); // To store removed items for logging
-            while (iterator.hasNext()) {
-                Item item = iterator.next();
-                if (item.getItemCategory().equals(categoryName)) {
-                    updateCategoryQuantity(item.getItemCategory(), -item.getItemQuantity());
-                    categoriesToCheck.add(item.getItemCategory());
-                    iterator.remove();
-                    removedItems.add(item); // Add to removed items list
-                    found = true;
-                }
-            }
-            if (!found) {
+            List<Item> removedItems = categoryIndex.removeItems(categoryName); // To store removed items for logging
+            if (removedItems.isEmpty()) {
                 throw new IllegalStateException("No items found in category " + categoryName);
             }
-            // Check categories for emptiness after all items are removed
-            for (String catName : categoriesToCheck) {
-                removeCategoryIfEmpty(catName);
+            inventoryItems.removeAll(new HashSet<>(removedItems)); // One pass over the list for the whole category
+            int removedQuantity = 0;
+            for (Item item : removedItems) {
+                itemPositions.remove(modelNumberKey(item.getModelNumber()));
+                searchIndex.remove(item);
+                unindexValues(item);
+                recordChange(new InventoryEvent.ItemRemoved(item));
+                journalRecord(InventoryJournal.ITEM_REMOVE, item.getModelNumber());
+                removedQuantity += item.getItemQuantity();
             }
+            renumberItems(0);
+            changeCategoryQuantity(categoryName, -removedQuantity);
+            removeCategoryIfEmpty(categoryName); // Check the category for emptiness after all items are removed
             saveData(); // Save data after removing items by category
             for (Item item : removedItems) {
-                logTransaction("REMOVE_CATEGORY_ITEM", item.getModelName(), item.getModelNumber(), item.getItemQuantity(), item.getItemCategory(), 0);
+                appendLogEntry("REMOVE_CATEGORY_ITEM", item.getModelName(), item.getModelNumber(), item.getItemQuantity(), item.getItemCategory(), 0);
             }
         } catch (Exception e) {
             System.err.println("Error removing item by category: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            unlockWrite(stamp);
+            saveScheduler.endOperation();
         }
     }
 
     // Helper method to remove a category if its quantity becomes 0
     private void removeCategoryIfEmpty(String categoryName) {
         try {
-            Category category = findCategoryByName(categoryName);
+            Category category = categoryIndex.getCategory(categoryName);
             if (category != null && category.getCategoryQuantity() == 0) {
-                itemCategories.remove(category);
+                removeFromCategories(categoryName);
+                journalRecord(InventoryJournal.CATEGORY_REMOVE, category.getCategoryName());
                 System.out.println("Category '" + categoryName + "' removed as it is now empty.");
-                logTransaction("CATEGORY_REMOVED", categoryName, "", 0, "", 0); // Log category removal
+                appendLogEntry("CATEGORY_REMOVED", categoryName, "", 0, "", 0); // Log category removal
                 saveData(); // Save data after category removal
             }
         } catch (Exception e) {
@@ -202,20 +562,221 @@ public class InventoryMgt {
         }
     }
 
+    // Adds every item in one operation; see applyChanges
+    public boolean addItems(Collection<Item> items) {
+        InventoryChanges changes = new InventoryChanges();
+        for (Item item : items) {
+            changes.add(item);
+        }
+        return applyChanges(changes);
+    }
+
+    // Removes every listed item in one operation; see applyChanges
+    public boolean removeItems(Collection<String> modelNumbers) {
+        InventoryChanges changes = new InventoryChanges();
+        for (String modelNumber : modelNumbers) {
+            changes.remove(modelNumber);
+        }
+        return applyChanges(changes);
+    }
+
+    /**
+     * Applies a batch of item changes as one operation. Every change is checked before
+     * any is applied, the list is rewritten once for all updates and removals, each
+     * category's quantity is adjusted once, and the batch is saved with a single write.
+     * @return true if the changes were applied; false if any was invalid, in which case none were
+     */
+    public boolean applyChanges(InventoryChanges changes) {
+        saveScheduler.beginOperation();
+        long stamp = lock.writeLock();
+        try {
+            if (changes == null) {
+                throw new IllegalArgumentException("Changes cannot be null");
+            }
+            validateChanges(changes);
+            Set<Item> removed = Collections.newSetFromMap(new IdentityHashMap<Item, Boolean>()); // Taken out of the list at the end
+            Map<String, String> categoryNames = new LinkedHashMap<>(); // Category key to the name first seen for it
+            Map<String, Integer> quantityChanges = new HashMap<>();
+            Set<String> vacatedCategories = new HashSet<>(); // Keys of categories that lost items
+            List<String[]> logEntries = new ArrayList<>();
+            for (InventoryChanges.Change change : changes.getChanges()) {
+                Item item = lookupItem(change.modelNumber);
+                Item details = change.item;
+                switch (change.type) {
+                    case ADD:
+                        item = newItem(details.getModelPrice(), details.getModelName(), details.getModelNumber(), details.getItemQuantity(), details.getItemCategory());
+                        addToItems(item);
+                        journalRecord(InventoryJournal.ITEM_ADD, item.getModelNumber(), item.getModelName(), String.valueOf(item.getModelPrice()), String.valueOf(item.getItemQuantity()), item.getItemCategory());
+                        addQuantityChange(categoryNames, quantityChanges, item.getItemCategory(), item.getItemQuantity());
+                        break;
+                    case UPDATE:
+                        markItemUpdated(item, details.getModelName(), details.getItemCategory());
+                        Item replacement = replaceInItems(item, details.getModelName(), details.getModelPrice(), details.getItemQuantity(), details.getItemCategory());
+                        journalRecord(InventoryJournal.ITEM_UPDATE, replacement.getModelNumber(), replacement.getModelName(), String.valueOf(replacement.getModelPrice()), String.valueOf(replacement.getItemQuantity()), replacement.getItemCategory());
+                        addQuantityChange(categoryNames, quantityChanges, item.getItemCategory(), -item.getItemQuantity());
+                        addQuantityChange(categoryNames, quantityChanges, replacement.getItemCategory(), replacement.getItemQuantity());
+                        if (!item.getItemCategory().equals(replacement.getItemCategory())) {
+                            vacatedCategories.add(ItemSectionLoader.categoryKey(item.getItemCategory()));
+                        }
+                        logEntries.add(new String[]{"UPDATE", replacement.getModelName(), replacement.getModelNumber(), String.valueOf(replacement.getItemQuantity()), replacement.getItemCategory(), String.valueOf(item.getItemQuantity())});
+                        break;
+                    case REMOVE:
+                        itemPositions.remove(modelNumberKey(item.getModelNumber()));
+                        unindexItem(item);
+                        removed.add(item);
+                        recordChange(new InventoryEvent.ItemRemoved(item));
+                        journalRecord(InventoryJournal.ITEM_REMOVE, item.getModelNumber());
+                        addQuantityChange(categoryNames, quantityChanges, item.getItemCategory(), -item.getItemQuantity());
+                        vacatedCategories.add(ItemSectionLoader.categoryKey(item.getItemCategory()));
+                        logEntries.add(new String[]{"REMOVE", item.getModelName(), item.getModelNumber(), String.valueOf(item.getItemQuantity()), item.getItemCategory(), "0"});
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (!removed.isEmpty()) {
+                inventoryItems.removeIf(removed::contains); // One pass over the list for all removals in the batch
+                renumberItems(0);
+            }
+            for (Map.Entry<String, String> category : categoryNames.entrySet()) {
+                changeCategoryQuantity(category.getValue(), quantityChanges.get(category.getKey()));
+            }
+            for (String categoryKey : vacatedCategories) {
+                removeCategoryIfEmpty(categoryNames.get(categoryKey));
+            }
+            saveData();
+            for (String[] entry : logEntries) {
+                appendLogEntry(entry[0], entry[1], entry[2], Integer.parseInt(entry[3]), entry[4], Integer.parseInt(entry[5]));
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error applying changes: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            unlockWrite(stamp);
+            saveScheduler.endOperation();
+        }
+    }
+
+    // Checks each change against the inventory as the changes before it would leave it
+    private void validateChanges(InventoryChanges changes) {
+        Map<String, Boolean> present = new HashMap<>(); // Model numbers the batch has added (true) or removed (false) so far
+        for (InventoryChanges.Change change : changes.getChanges()) {
+            if (change.type != InventoryChanges.Type.REMOVE) {
+                if (change.item == null) {
+                    throw new IllegalArgumentException("Item cannot be null");
+                }
+                if (change.item.getItemCategory() == null || change.item.getItemCategory().trim().isEmpty()) {
+                    throw new IllegalArgumentException("Category cannot be null or empty");
+                }
+                checkSingleLine(change.item);
+            }
+            if (change.modelNumber == null || change.modelNumber.trim().isEmpty()) {
+                throw new IllegalArgumentException("Model number cannot be null or empty");
+            }
+            String key = modelNumberKey(change.modelNumber);
+            Boolean known = present.get(key);
+            boolean exists = known != null ? known : itemPositions.containsKey(key);
+            if (change.type == InventoryChanges.Type.ADD && exists) {
+                throw new IllegalStateException("Item with model number " + change.modelNumber + " already exists");
+            }
+            if (change.type != InventoryChanges.Type.ADD && !exists) {
+                throw new IllegalStateException("Item with model number " + change.modelNumber + " not found");
+            }
+            if (change.type != InventoryChanges.Type.UPDATE) {
+                present.put(key, change.type == InventoryChanges.Type.ADD);
+            }
+        }
+    }
+
+    // Every record in the data file and the journal is one line, so a line break in a name could not be read back
+    private static void checkSingleLine(Item item) {
+        checkSingleLine("Model number", item.getModelNumber());
+        checkSingleLine("Model name", item.getModelName());
+        checkSingleLine("Category", item.getItemCategory());
+    }
+
+    private static void checkSingleLine(String what, String value) {
+        if (value != null && (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)) {
+            throw new IllegalArgumentException(what + " cannot contain a line break");
+        }
+    }
+
+    private static void addQuantityChange(Map<String, String> categoryNames, Map<String, Integer> quantityChanges, String categoryName, int change) {
+        String key = ItemSectionLoader.categoryKey(categoryName);
+        categoryNames.putIfAbsent(key, categoryName);
+        quantityChanges.merge(key, change, Integer::sum);
+    }
+
     public Item searchItem(String searchTerm) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             throw new IllegalArgumentException("Search term cannot be null or empty");
         }
-        for (Item item : inventoryItems) {
-            if (item.getModelNumber().equals(searchTerm) || 
-                item.getModelName().equalsIgnoreCase(searchTerm)) {
+        return read(() -> {
+            Item item = lookupItem(searchTerm);
+            if (item != null) {
                 return item;
             }
+            for (Item candidate : inventoryItems) {
+                if (candidate.getModelName().equalsIgnoreCase(searchTerm)) {
+                    return candidate;
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Finds the items whose model name, model number or category match every word of the
+     * query, allowing prefixes and small typos ("wave125 oil", "knuckle hkz"). An item
+     * whose model number is the whole query comes first.
+     * @param limit Maximum number of items to return
+     * @return The matching items, best match first
+     */
+    public List<Item> searchItems(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Search term cannot be null or empty");
+        }
+        return read(() -> {
+            List<Item> found = searchIndex.search(query, limit);
+            Item exact = lookupItem(query);
+            if (exact != null && limit > 0) {
+                found.remove(exact);
+                found.add(0, exact);
+                if (found.size() > limit) {
+                    found.remove(found.size() - 1);
+                }
+            }
+            return found;
+        });
+    }
+
+    // Every item searchItems would find, unranked and without a limit, for filtering a whole list
+    public List<Item> findMatchingItems(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Search term cannot be null or empty");
         }
-        return null;
+        return read(() -> {
+            List<Item> found = searchIndex.searchAll(query);
+            Item exact = lookupItem(query);
+            if (exact != null && !found.contains(exact)) {
+                found.add(exact);
+            }
+            return found;
+        });
     }
 
     public void addCategory(String categoryName, int initialQuantity) {
+        long stamp = lock.writeLock();
+        try {
+            createCategory(categoryName, initialQuantity);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private void createCategory(String categoryName, int initialQuantity) {
         try {
             if (categoryName == null || categoryName.trim().isEmpty()) {
                 throw new IllegalArgumentException("Category name cannot be null or empty");
@@ -223,11 +784,13 @@ public class InventoryMgt {
             if (initialQuantity < 0) {
                 throw new IllegalArgumentException("Initial quantity cannot be negative");
             }
-            if (findCategoryByName(categoryName) != null) {
+            checkSingleLine("Category name", categoryName);
+            if (categoryIndex.getCategory(categoryName) != null) {
                 throw new IllegalStateException("Category " + categoryName + " already exists");
             }
             Category category = new Category(categoryName, initialQuantity);
-            itemCategories.add(category);
+            addToCategories(category);
+            journalRecord(InventoryJournal.CATEGORY_ADD, categoryName, String.valueOf(initialQuantity));
             saveData(); // Save data after adding a category
         } catch (Exception e) {
             System.err.println("Error adding category: " + e.getMessage());
@@ -236,35 +799,45 @@ public class InventoryMgt {
     }
 
     public void removeCategory(String categoryName) {
+        long stamp = lock.writeLock();
         try {
-            boolean removed = itemCategories.removeIf(category -> category.getCategoryName().equals(categoryName));
-            if (!removed) {
+            if (categoryName == null || removeFromCategories(categoryName) == null) {
                 throw new IllegalStateException("Category " + categoryName + " not found");
             }
+            journalRecord(InventoryJournal.CATEGORY_REMOVE, categoryName);
             saveData(); // Save data after removing a category
         } catch (Exception e) {
             System.err.println("Error removing category: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            unlockWrite(stamp);
         }
     }
 
     public void updateCategoryQuantity(String categoryName, int quantityChange) {
+        long stamp = lock.writeLock();
+        try {
+            changeCategoryQuantity(categoryName, quantityChange);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private void changeCategoryQuantity(String categoryName, int quantityChange) {
         try {
             if (categoryName == null || categoryName.trim().isEmpty()) {
                 throw new IllegalArgumentException("Category name cannot be null or empty");
             }
-            Category category = findCategoryByName(categoryName);
+            Category category = categoryIndex.getCategory(categoryName);
             if (category == null) {
                 // If category doesn't exist, create it (especially important for adding items to new categories)
-                addCategory(categoryName, 0); // Add with 0 quantity initially
-                category = findCategoryByName(categoryName); // Retrieve the newly created category
+                createCategory(categoryName, 0); // Add with 0 quantity initially
+                category = categoryIndex.getCategory(categoryName); // Retrieve the newly created category
             }
 
-            if (quantityChange > 0) {
-                category.increaseQuantity(quantityChange);
-            } else if (quantityChange < 0) {
-                category.decreaseQuantity(Math.abs(quantityChange)); // Use decreaseQuantity for negative changes
-            }
+            // Clamped at zero: a category quantity is never negative
+            category = setCategoryQuantity(category, Math.max(0, category.getCategoryQuantity() + quantityChange));
+            journalRecord(InventoryJournal.CATEGORY_QTY, category.getCategoryName(), String.valueOf(category.getCategoryQuantity()));
             saveData(); // Save data after updating category quantity
         } catch (Exception e) {
             System.err.println("Error updating category quantity: " + e.getMessage());
@@ -273,12 +846,13 @@ public class InventoryMgt {
     }
 
     public void viewCategories() {
-        if (itemCategories.isEmpty()) {
+        List<Category> categories = getItemCategories();
+        if (categories.isEmpty()) {
             System.out.println("\nNo categories defined.");
             return;
         }
         System.out.println("\n=== Categories ===");
-        for (Category category : itemCategories) {
+        for (Category category : categories) {
             System.out.println("Category: " + category.getCategoryName());
             System.out.println("Quantity: " + category.getCategoryQuantity());
             System.out.println("------------------------");
@@ -286,15 +860,119 @@ public class InventoryMgt {
     }
 
     public void loadData() {
+        loadData(NO_PROGRESS);
+    }
+
+    /**
+     * Reads the inventory back from disk, reporting how far it has got: the snapshot is
+     * most of the work, then the indexes, then the journal record by record.
+     *
+     * The files are read and indexed under the read lock, so other readers carry on while
+     * writers, whose saves would change the files, wait; the new inventory then replaces
+     * the old one under the write lock. If a writer, or another load, got the lock in
+     * between, the files are read again under the write lock. Until progress has reported
+     * LOAD_COMMIT_PROGRESS the load can be cancelled by interrupting the thread running it:
+     * it throws CancellationException and the inventory stays as it was.
+     * @param progress Receives the percentage done, from 0 to 100, on the calling thread
+     */
+    public void loadData(IntConsumer progress) {
+        progress.accept(0);
+        saveScheduler.flush(); // Make sure the disk holds everything before reading it back
+        String readFilePath;
+        long writesBeforeRead;
+        long stamp = lock.writeLock();
+        try {
+            readFilePath = availabilityChecker.getDataFilePath();
+            setStorePath(readFilePath);
+            writesBeforeRead = writeCount;
+        } finally {
+            lock.unlockWrite(stamp); // Nothing the listeners see has changed yet
+        }
+        progress.accept(5);
+        Map<String, Object> loadedData;
+        stamp = lock.readLock();
+        try {
+            loadedData = readFromDisk(readFilePath, progress);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        stamp = lock.writeLock();
+        try {
+            if (writeCount != writesBeforeRead) {
+                // What was read may be out of date; this time nothing can change it before it is used
+                readFilePath = availabilityChecker.getDataFilePath();
+                setStorePath(readFilePath);
+                loadedData = readFromDisk(readFilePath, progress);
+            }
+            progress.accept(LOAD_COMMIT_PROGRESS);
+            checkLoadCancelled(); // The last check: from here the load runs to the end
+            useLoadedData(readFilePath, loadedData, progress);
+        } finally {
+            unlockWrite(stamp);
+        }
+        progress.accept(100);
+    }
+
+    private static void checkLoadCancelled() {
+        if (Thread.interrupted()) {
+            throw new CancellationException("Loading the inventory was cancelled");
+        }
+    }
+
+    // Reads the newest snapshot and indexes it, changing nothing; null if it could not be read
+    private Map<String, Object> readFromDisk(String readFilePath, IntConsumer progress) {
+        try {
+            Map<String, Object> loadedData = readNewestSnapshot(readFilePath);
+            checkLoadCancelled();
+            progress.accept(60);
+            @SuppressWarnings("unchecked")
+            List<Item> items = (List<Item>) loadedData.get("items");
+            @SuppressWarnings("unchecked")
+            List<Category> categories = (List<Category>) loadedData.get("categories");
+            loadedData.put("indexes", new Indexes(items, categories));
+            checkLoadCancelled();
+            progress.accept(75);
+            return loadedData;
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            checkLoadCancelled(); // An interrupted read fails with an I/O error rather than stopping cleanly
+            System.err.println("Error loading data: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void useLoadedData(String readFilePath, Map<String, Object> loadedData, IntConsumer progress) {
+        version++;
         try {
-            Map<String, Object> loadedData = availabilityChecker.readAllDataFromFile();
+            if (loadedData == null) {
+                throw new IOException("No inventory could be read from " + readFilePath);
+            }
             this.inventoryItems = (List<Item>) loadedData.get("items");
             this.itemCategories = (List<Category>) loadedData.get("categories");
-            this.transactionLogs = (List<String>) loadedData.get("logs");
+            useIndexes((Indexes) loadedData.get("indexes"));
+            dirtyTracker.clear();
+            if ((Boolean) loadedData.get("storeStale")) {
+                dirtyTracker.markAll(); // The store does not match the CSV that was loaded
+            }
+            exportStale = (Boolean) loadedData.get("exportStale");
             this.lowStockThreshold = (int) loadedData.get("lowStockThreshold");
+            migrateSnapshotLogs((List<String>) loadedData.get("logs"));
+            // Replay whatever was journaled on top of the snapshot we just read
+            journal.setDataFilePath(readFilePath);
+            replayJournal((String) loadedData.get("snapshotId"), progress);
+            this.transactionLogs = new ArrayList<>(store.readLogs(store.getLogCount() - RECENT_LOG_ENTRIES, RECENT_LOG_ENTRIES));
+            progress.accept(98);
             // Update the dataFilePath in InventoryMgt if it was loaded from the file
             this.dataFilePath = (String) loadedData.get("dataPath");
             this.availabilityChecker.setDataFilePath(this.dataFilePath); // Ensure availabilityChecker also has the updated path
+            if (!this.dataFilePath.equals(readFilePath)) {
+                // The journal belongs to the file we read, so start the new location from a full snapshot
+                setStorePath(this.dataFilePath);
+                journal.setDataFilePath(this.dataFilePath);
+                writeCheckpoint();
+            }
             System.out.println("Data loaded successfully from " + dataFilePath);
         } catch (Exception e) {
             System.err.println("Error loading data: " + e.getMessage());
@@ -302,28 +980,380 @@ public class InventoryMgt {
             // Initialize with empty data if loading fails
             this.inventoryItems = new ArrayList<>();
             this.itemCategories = new ArrayList<>();
+            useIndexes(new Indexes(inventoryItems, itemCategories));
+            dirtyTracker.clear();
+            exportStale = false;
             this.transactionLogs = new ArrayList<>();
             this.lowStockThreshold = 5; // Default low stock threshold
             this.dataFilePath = System.getProperty("user.dir") + File.separator + INVENTORY_DATA_FILENAME;
             this.availabilityChecker.setDataFilePath(this.dataFilePath);
+            setStorePath(this.dataFilePath);
+            this.journal.setDataFilePath(this.dataFilePath);
+        }
+        pendingChanges.clear(); // The replay's changes are all part of the reload
+        pendingReload = true;
+    }
+
+    // The CSV store moves with availabilityChecker; any other store is pointed at the new path itself
+    private void setStorePath(String path) {
+        if (store != availabilityChecker) {
+            store.setDataFilePath(path);
+        }
+    }
+
+    // Data files from before the separate log store carry their history in LOG_DATA; move it over once
+    private void migrateSnapshotLogs(List<String> snapshotLogs) {
+        if (snapshotLogs == null || snapshotLogs.isEmpty() || store.getLogCount() > 0) {
+            return;
+        }
+        for (String logEntry : snapshotLogs) {
+            store.appendLog(logEntry);
+        }
+        store.flushLog();
+        System.out.println("Moved " + snapshotLogs.size() + " log entries out of the data file");
+    }
+
+    // Reads the store when it is at least as new as the CSV; a CSV edited since then wins. Says which copy is behind rather than marking it
+    private Map<String, Object> readNewestSnapshot(String csvFilePath) {
+        File csvFile = new File(csvFilePath);
+        if (store != availabilityChecker && store.exists() && (!csvFile.exists() || store.lastModified() >= csvFile.lastModified())) {
+            Map<String, Object> loadedData = store.load();
+            if (loadedData != null) {
+                loadedData.put("exportStale", csvFile.exists() && store.lastModified() > csvFile.lastModified());
+                loadedData.put("storeStale", false);
+                loadedData.put("dataPath", System.getProperty("user.dir") + File.separator + INVENTORY_DATA_FILENAME);
+                return loadedData;
+            }
+        }
+        Map<String, Object> loadedData = availabilityChecker.readAllDataFromFile();
+        loadedData.put("exportStale", false);
+        loadedData.put("storeStale", store != availabilityChecker);
+        return loadedData;
+    }
+
+    // Applies journal records on top of the freshly loaded snapshot, without re-journaling them
+    private void replayJournal(String snapshotId, IntConsumer progress) {
+        List<String[]> records = journal.readRecords();
+        String loadedBase = snapshotId == null ? InventoryJournal.NO_SNAPSHOT : snapshotId;
+        if (!records.isEmpty() && records.get(0)[0].equals(InventoryJournal.BASE)) {
+            String journalBase = records.get(0).length > 1 ? records.get(0)[1] : "";
+            if (!journalBase.equals(loadedBase)) {
+                // Written against another snapshot: the last checkpoint already holds these records
+                System.out.println("Discarding journal " + journal.getJournalFilePath() + " already folded into snapshot " + loadedBase);
+                journal.reset(snapshotId);
+                return;
+            }
+            records = records.subList(1, records.size());
         }
+        journal.setBaseSnapshotId(snapshotId);
+        boolean movedLogEntries = false;
+        int replayed = 0;
+        for (String[] record : records) {
+            if (replayed++ % 1024 == 0) {
+                progress.accept(80 + 15 * replayed / records.size()); // 80 to 95 percent
+            }
+            try {
+                trackChange(record);
+                applyJournalRecord(record);
+                movedLogEntries |= record[0].equals(InventoryJournal.LOG_ENTRY);
+            } catch (Exception e) {
+                // A torn last record (crash mid-append) lands here; everything before it is still applied
+                System.err.println("Skipping invalid journal record: " + String.join(",", record));
+            }
+        }
+        if (!records.isEmpty()) {
+            System.out.println("Replayed " + records.size() + " journal records from " + journal.getJournalFilePath());
+        }
+        if (movedLogEntries) {
+            // Older journals carried log entries; they are in the log store now, so fold the journal away
+            store.flushLog();
+            writeCheckpoint();
+        }
+    }
+
+    private void applyJournalRecord(String[] record) {
+        Category category;
+        switch (record[0]) {
+            case InventoryJournal.ITEM_ADD:
+                removeFromItems(record[1]); // An add is absolute: it replaces any item already under that number
+                addToItems(newItem(Double.parseDouble(record[3]), record[2], record[1], Integer.parseInt(record[4]), record[5]));
+                break;
+            case InventoryJournal.ITEM_REMOVE:
+                removeFromItems(record[1]);
+                break;
+            case InventoryJournal.ITEM_UPDATE:
+                Item item = lookupItem(record[1]);
+                if (item != null) {
+                    markItemUpdated(item, record[2], record[5]);
+                    replaceInItems(item, record[2], Double.parseDouble(record[3]), Integer.parseInt(record[4]), record[5]);
+                }
+                break;
+            case InventoryJournal.CATEGORY_ADD:
+                if (categoryIndex.getCategory(record[1]) == null) {
+                    addToCategories(new Category(record[1], Integer.parseInt(record[2])));
+                }
+                break;
+            case InventoryJournal.CATEGORY_REMOVE:
+                removeFromCategories(record[1]);
+                break;
+            case InventoryJournal.CATEGORY_QTY:
+                category = categoryIndex.getCategory(record[1]);
+                if (category == null) {
+                    category = new Category(record[1], 0);
+                    addToCategories(category);
+                }
+                setCategoryQuantity(category, Integer.parseInt(record[2]));
+                break;
+            case InventoryJournal.THRESHOLD:
+                lowStockThreshold = Integer.parseInt(record[1]);
+                break;
+            case InventoryJournal.LOG_ENTRY:
+                store.appendLog(record[1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record type: " + record[0]);
+        }
+    }
+
+    private void journalRecord(String... fields) {
+        version++;
+        trackChange(fields);
+        if (journalEnabled) {
+            journal.append(fields);
+        }
+    }
+
+    // Marks the sections and records a journal record touches; ITEM_UPDATE is marked by its callers
+    private void trackChange(String[] record) {
+        exportStale = true;
+        switch (record[0]) {
+            case InventoryJournal.ITEM_ADD:
+                dirtyTracker.markItemAdded(record[1]);
+                break;
+            case InventoryJournal.ITEM_REMOVE:
+                dirtyTracker.markItemRemoved(record[1]);
+                break;
+            case InventoryJournal.CATEGORY_ADD:
+            case InventoryJournal.CATEGORY_REMOVE:
+                dirtyTracker.markRewrite(DirtyTracker.CATEGORY_DATA);
+                break;
+            case InventoryJournal.CATEGORY_QTY:
+                dirtyTracker.markCategory(record[1]);
+                break;
+            case InventoryJournal.THRESHOLD:
+                dirtyTracker.markThreshold();
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Brings the store up to date under the given id, writing only what changed where that is safe
+    private boolean writeSnapshot(String snapshotId) {
+        boolean written = canPatchInPlace()
+                ? store.save(inventoryItems, itemCategories, lowStockThreshold, dirtyTracker, snapshotId)
+                : store.snapshot(inventoryItems, itemCategories, lowStockThreshold, snapshotId);
+        if (written) {
+            dirtyTracker.clear();
+        }
+        return written;
     }
 
+    /**
+     * A patch written in place is torn if the process dies halfway, and the file still
+     * reads as complete. That is only safe when the journal is on, so the next load
+     * replays it over the torn file, or when the store commits the patch atomically.
+     * Otherwise every write goes through the store's atomic full snapshot.
+     */
+    private boolean canPatchInPlace() {
+        return journalEnabled || store.isTransactional();
+    }
+
+    public boolean isJournalEnabled() {
+        return readOptimistic(() -> journalEnabled);
+    }
+
+    public void setJournalEnabled(boolean journalEnabled) {
+        long stamp = lock.writeLock();
+        try {
+            this.journalEnabled = journalEnabled;
+            writeCheckpoint(); // Either way, start from a full snapshot and an empty journal
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // Writes a full binary snapshot and clears the journal once the snapshot is safely written
+    public void checkpoint() {
+        long stamp = lock.writeLock();
+        try {
+            writeCheckpoint();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private void writeCheckpoint() {
+        try {
+            String snapshotId = UUID.randomUUID().toString();
+            if (writeSnapshot(snapshotId)) {
+                journal.reset(snapshotId);
+                System.out.println("Checkpoint written to " + store.getLocation());
+            }
+        } catch (Exception e) {
+            System.err.println("Error writing checkpoint: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Writes the CSV export and then the binary snapshot under the same id, so the binary stays the newer file
     public void exportData() {
-        availabilityChecker.writeAllDataToFile(inventoryItems, itemCategories, lowStockThreshold, transactionLogs, dataFilePath);
+        long stamp = lock.writeLock();
+        try {
+            writeExport();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private void writeExport() {
+        try {
+            String snapshotId = UUID.randomUUID().toString();
+            // The export is the interchange format, so it carries the history from the log store;
+            // loading it where the log store is empty moves the history over (migrateSnapshotLogs)
+            store.flushLog();
+            List<String> history = store.readLogs(0, store.getLogCount());
+            if (availabilityChecker.writeAllDataToFile(inventoryItems, itemCategories, lowStockThreshold, history, dataFilePath, snapshotId)
+                    && (store == availabilityChecker || writeSnapshot(snapshotId))) {
+                journal.reset(snapshotId);
+                exportStale = false;
+            }
+        } catch (Exception e) {
+            System.err.println("Error exporting data: " + e.getMessage());
+            e.printStackTrace();
+        }
     }
 
+    // Marks the state dirty; the writer thread persists it once per save window
     public void saveData() {
         try {
-            availabilityChecker.writeAllDataToFile(inventoryItems, itemCategories, lowStockThreshold, transactionLogs, dataFilePath);
-            System.out.println("Data saved successfully to " + dataFilePath);
+            saveScheduler.markDirty();
         } catch (Exception e) {
             System.err.println("Error saving data: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    // Runs on the writer thread: commits the buffered journal records, or writes a full binary snapshot when journaling is off
+    private void writePendingChanges() {
+        List<Item> itemsToWrite;
+        List<Category> categoriesToWrite = new ArrayList<>();
+        int thresholdToWrite;
+        long stamp = lock.writeLock();
+        try {
+            store.flushLog();
+            if (journalEnabled) {
+                journal.flush();
+                // Only fold the journal into the data file every CHECKPOINT_INTERVAL records
+                if (journal.getRecordCount() >= CHECKPOINT_INTERVAL) {
+                    writeCheckpoint();
+                }
+                return;
+            }
+            if (dirtyTracker.isClean()) {
+                return;
+            }
+            if (canPatchInPlace() && store.canSaveInPlace(dirtyTracker)) {
+                // Only the changed values are written, which is cheap enough to do under the lock
+                if (writeSnapshot(UUID.randomUUID().toString())) {
+                    return;
+                }
+            }
+            dirtyTracker.clear(); // Changes made while the copy below is written mark it dirty again
+            // Copy under the lock so the GUI can keep editing while the file is written
+            itemsToWrite = new ArrayList<>(inventoryItems);
+            for (Category category : itemCategories) {
+                categoriesToWrite.add(new Category(category.getCategoryName(), category.getCategoryQuantity()));
+            }
+            thresholdToWrite = lowStockThreshold;
+        } finally {
+            writeCount++; // The journal or the store may have been written
+            lock.unlockWrite(stamp); // Only copies were taken, so there is nothing to tell the listeners
+        }
+        if (store.snapshot(itemsToWrite, categoriesToWrite, thresholdToWrite, UUID.randomUUID().toString())) {
+            System.out.println("Data saved successfully to " + store.getLocation());
+        } else {
+            stamp = lock.writeLock();
+            try {
+                dirtyTracker.markAll(); // Try the full write again next time
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Runs several mutations as one logical operation, so they are persisted with a
+     * single write once the operation finishes instead of one write per call.
+     * @param operation The mutations to run
+     */
+    public void performOperation(Runnable operation) {
+        saveScheduler.beginOperation();
+        try {
+            operation.run();
+        } finally {
+            saveScheduler.endOperation();
+        }
+    }
+
+    // True while a save has been asked for and not yet written, or is being written
+    public boolean isSaving() {
+        return saveScheduler.isBusy();
+    }
+
+    // Writes any pending changes now and waits for them; call before the application exits
+    public void flush() {
+        saveScheduler.flush();
+    }
+
+    // Flushes pending changes, refreshes the CSV export and stops the writer thread
+    public void shutdown() {
+        saveScheduler.shutdown();
+        long stamp = lock.writeLock();
+        try {
+            if (exportStale) {
+                writeExport();
+            }
+            journal.close();
+            store.close();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    public long getSaveWindowMillis() {
+        return saveScheduler.getWindowMillis();
+    }
+
+    public void setSaveWindowMillis(long windowMillis) {
+        saveScheduler.setWindowMillis(windowMillis);
+    }
+
+    // Number of saveData() calls that were absorbed into another write
+    public long getCoalescedSaveCount() {
+        return saveScheduler.getCoalescedWriteCount();
+    }
+
     public void logTransaction(String action, String modelName, String modelNumber, int quantity, String categoryAffected, int oldValue) {
+        long stamp = lock.writeLock();
+        try {
+            appendLogEntry(action, modelName, modelNumber, quantity, categoryAffected, oldValue);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private void appendLogEntry(String action, String modelName, String modelNumber, int quantity, String categoryAffected, int oldValue) {
         String timestamp = dateFormat.format(new Date());
         String logEntry;
 
@@ -332,33 +1362,142 @@ public class InventoryMgt {
         } else {
             logEntry = "LOG," + timestamp + "," + action + "," + modelName + "," + modelNumber + "," + quantity + "," + categoryAffected;
         }
+        store.appendLog(logEntry); // Committed to disk with the next background write
         transactionLogs.add(logEntry);
-        // Logs are now written as part of the comprehensive saveData() call
+        if (transactionLogs.size() > RECENT_LOG_ENTRIES) {
+            transactionLogs.remove(0);
+        }
     }
 
+    // The most recent log entries only; use getTransactionLogPage for the full history
     public List<String> getTransactionLogs() {
-        return transactionLogs;
+        return read(() -> Collections.unmodifiableList(new ArrayList<>(transactionLogs)));
     }
 
-    public List<Category> getItemCategories() {
-        return itemCategories;
+    public int getTransactionLogCount() {
+        return read(store::getLogCount);
     }
 
-    public List<Category> getLowStockCategories() {
-        List<Category> lowStock = new ArrayList<>();
-        for (Category category : itemCategories) {
-            if (category.getCategoryQuantity() < lowStockThreshold) {
-                lowStock.add(category);
+    /**
+     * Reads a page of the transaction history from disk, oldest entry first.
+     * @param fromIndex Index of the first entry, 0 being the oldest
+     * @param count Maximum number of entries to return
+     */
+    public List<String> getTransactionLogPage(int fromIndex, int count) {
+        return read(() -> store.readLogs(fromIndex, count));
+    }
+
+    /**
+     * Finds the items matching a query. A store that runs queries itself (the database
+     * store) answers it from its indexes after pending changes are written; otherwise the
+     * items in memory are filtered, starting from the price or quantity index when the
+     * query has a range on either.
+     * @return The matching items, in inventory order, or in price (else quantity) order
+     *         when the items in memory were narrowed by a range
+     */
+    public List<Item> findItems(ItemQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (store.supportsQueries()) {
+            flush();
+            // Writes the store first when it is behind, so this takes the write lock
+            long stamp = lock.writeLock();
+            try {
+                List<Item> found = new ArrayList<>();
+                if (!dirtyTracker.isClean()) {
+                    writeCheckpoint(); // Journaled changes have to reach the store before it can answer
+                }
+                for (Item storedItem : store.findItems(query)) {
+                    Item item = lookupItem(storedItem.getModelNumber());
+                    if (item != null) {
+                        found.add(item); // The inventory's own object, as the in-memory search below returns
+                    }
+                }
+                return found;
+            } finally {
+                unlockWrite(stamp);
             }
         }
-        return lowStock;
+        return read(() -> {
+            List<Item> found = new ArrayList<>();
+            // A price or quantity range narrows the candidates through its sorted index first
+            List<Item> candidates = inventoryItems;
+            if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+                candidates = itemsByPrice.range(query.getMinPrice(), true, query.getMaxPrice(), true);
+            } else if (query.getMinQuantity() != null || query.getMaxQuantity() != null) {
+                candidates = itemsByQuantity.range(query.getMinQuantity(), true, query.getMaxQuantity(), true);
+            }
+            for (Item item : candidates) {
+                if (query.matches(item)) {
+                    found.add(item);
+                }
+            }
+            return found;
+        });
+    }
+
+    /**
+     * Finds the items priced within an inclusive range.
+     * @return The items, cheapest first
+     */
+    public List<Item> findItemsByPrice(double minPrice, double maxPrice) {
+        return read(() -> itemsByPrice.range(minPrice, true, maxPrice, true));
+    }
+
+    /**
+     * Finds the items whose quantity is within an inclusive range, e.g. 0 to 2 for nearly sold out.
+     * @return The items, lowest quantity first
+     */
+    public List<Item> findItemsByQuantity(int minQuantity, int maxQuantity) {
+        return read(() -> itemsByQuantity.range(minQuantity, true, maxQuantity, true));
+    }
+
+    public List<Item> getItemsSortedByPrice(boolean ascending) {
+        return read(() -> itemsByPrice.sorted(ascending));
+    }
+
+    public List<Item> getItemsSortedByQuantity(boolean ascending) {
+        return read(() -> itemsByQuantity.sorted(ascending));
+    }
+
+    public String getStoreLocation() {
+        return store.getLocation();
+    }
+
+    // The categories of the current snapshot, like getInventoryItems
+    public List<Category> getItemCategories() {
+        return getSnapshot().getCategories();
+    }
+
+    // Categories below the low stock threshold, lowest quantity first
+    public List<Category> getLowStockCategories() {
+        return read(() -> aggregates.getCategoriesBelow(lowStockThreshold));
     }
 
     public double calculateTotalInventoryWorth() {
-        double totalWorth = 0.0;
-        for (Item item : inventoryItems) {
-            totalWorth += item.getModelPrice() * item.getItemQuantity();
-        }
-        return totalWorth;
+        return readOptimistic(aggregates::getTotalWorth);
+    }
+
+    public double getCategoryWorth(String categoryName) {
+        return read(() -> aggregates.getCategoryWorth(categoryName));
+    }
+
+    // Worth of each category that has items, in one pass over the aggregates' columns
+    public Map<String, Double> getWorthByCategory() {
+        return read(aggregates::getWorthByCategory);
+    }
+
+    // Summed quantity of the category's items, whatever the category record says
+    public long getCategoryItemQuantity(String categoryName) {
+        return read(() -> aggregates.getCategoryItemQuantity(categoryName));
+    }
+
+    /**
+     * Checks the running totals against a full recompute over the items and categories.
+     * @return A description of the first difference, or null if they agree
+     */
+    public String verifyAggregates() {
+        return read(() -> aggregates.verify(inventoryItems, itemCategories));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The inventory at one point in time, as published by InventoryMgt.getSnapshot. Nothing
+ * in it changes: the lists are read-only copies and InventoryMgt replaces rather than
+ * edits the items and categories it shares with them. The version goes up with every
+ * change to the inventory, so two snapshots with the same version hold the same data.
+ */
+public final class InventorySnapshot {
+    private final long version;
+    private final List<Item> items;
+    private final List<Category> categories;
+    private final int lowStockThreshold;
+    private final double totalWorth;
+
+    public InventorySnapshot(long version, List<Item> items, List<Category> categories, int lowStockThreshold, double totalWorth) {
+        this.version = version;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+        this.lowStockThreshold = lowStockThreshold;
+        this.totalWorth = totalWorth;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    public int getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public double getTotalWorth() {
+        return totalWorth;
+    }
+}
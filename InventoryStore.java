@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Storage backend for the inventory. InventoryMgt keeps the working set in memory and
+ * goes through this interface for everything that touches disk, so a backend can be
+ * swapped without changing the GUI. The CSV export is always written as well.
+ *
+ * Backends are picked with the inventory.store system property:
+ *   csv     Availability, the plain data file
+ *   binary  BinaryInventoryStore, the binary snapshot (default)
+ *   jdbc    JdbcInventoryStore, an embedded H2 or SQLite database file
+ * There is no fallback: if the chosen store cannot be opened, create throws and so
+ * does the InventoryMgt constructor.
+ */
+public interface InventoryStore {
+    String STORE_PROPERTY = "inventory.store";
+    String DEFAULT_STORE = "binary";
+
+    static InventoryStore create(String type, String dataFilePath) {
+        switch (type.trim().toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return new Availability(dataFilePath);
+            case "binary":
+                return new BinaryInventoryStore(dataFilePath);
+            case "jdbc":
+                return new JdbcInventoryStore(dataFilePath);
+            default:
+                throw new IllegalArgumentException("Unknown inventory store: " + type);
+        }
+    }
+
+    // Where the store keeps its data, for messages
+    String getLocation();
+
+    /**
+     * Points the store at the data file's new location. The transaction history is
+     * carried over when the new location has none yet.
+     */
+    void setDataFilePath(String dataFilePath);
+
+    boolean exists();
+
+    // Millis of the last write, comparable with File.lastModified()
+    long lastModified();
+
+    /**
+     * Reads the stored inventory into the same map Availability.readAllDataFromFile returns
+     * (items, categories, logs, lowStockThreshold, dataPath, snapshotId, complete).
+     * @return The loaded data, or null if nothing usable is stored
+     */
+    Map<String, Object> load();
+
+    // Replaces everything stored with the given state
+    boolean snapshot(List<Item> items, List<Category> categories, int lowStockThreshold, String snapshotId);
+
+    /**
+     * Persists the given state, writing only what the tracker marks as changed where the
+     * backend can. The tracker is left as it is; the caller clears it on success.
+     */
+    boolean save(List<Item> items, List<Category> categories, int lowStockThreshold, DirtyTracker changes, String snapshotId);
+
+    // Whether save() can write these changes without rewriting the whole store
+    boolean canSaveInPlace(DirtyTracker changes);
+
+    void appendLog(String logEntry);
+
+    // Commits appended log entries
+    void flushLog();
+
+    int getLogCount();
+
+    // Log entries [fromIndex, fromIndex + count), oldest first
+    List<String> readLogs(int fromIndex, int count);
+
+    // Whether findItems answers from an index, so asking the store beats filtering the items in memory
+    default boolean supportsQueries() {
+        return false;
+    }
+
+    /**
+     * Finds the stored items matching a query. By default the whole store is read and
+     * filtered; a store that supports queries answers from its indexes instead.
+     * @return The matching items in stored order; empty if nothing usable is stored
+     */
+    @SuppressWarnings("unchecked")
+    default List<Item> findItems(ItemQuery query) {
+        List<Item> found = new ArrayList<>();
+        Map<String, Object> stored = load();
+        if (stored != null) {
+            for (Item item : (List<Item>) stored.get("items")) {
+                if (query.matches(item)) {
+                    found.add(item);
+                }
+            }
+        }
+        return found;
+    }
+
+    // A transactional store is its own journal, so InventoryMgt does not keep one in front of it
+    default boolean isTransactional() {
+        return false;
+    }
+
+    void close();
+}
@@ -1,10 +1,19 @@
 import javax.swing.*;
 import java.awt.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import javax.swing.event.TreeSelectionEvent;
@@ -20,7 +29,8 @@ import javax.swing.UIManager;
 import javax.swing.ImageIcon;
 import java.awt.event.KeyEvent;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.HashMap;
 import java.util.Map;
 import javax.swing.plaf.basic.*;
@@ -28,11 +38,18 @@ import java.io.File; // Import File class
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.TableRowSorter;
 
 public class InventorySwingGUI extends JFrame implements ActionListener {
+    static final int SEARCH_DELAY_MILLIS = 150; // Pause in typing before the search runs
+    static final int SAVE_STATUS_MILLIS = 200; // How often the saving indicator looks at the writer
+    private static final int LOG_PAGE_SIZE = 500; // Log entries shown per page in the transaction log dialog
+
     private InventoryMgt inventoryManager;
     private JTable itemTable;
-    private DefaultTableModel itemTableModel;
+    private InventoryTableModel itemTableModel;
     private JTree categoryTree;
     private DefaultTreeModel categoryTreeModel;
     private JTextField searchField;
@@ -42,10 +59,36 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
     private JLabel totalWorthLabel; // New JLabel for cumulative worth
     private JButton searchButton; // Declare as class member
     private JButton clearButton; // Declare as class member
+    private long shownVersion = -1; // Inventory version the views were last drawn from
+    private List<String> shownCategories = new ArrayList<>(); // Category names in the tree, in order
+    private List<Item> unfilteredRows = Collections.emptyList(); // The inventory or a category's items, before the search narrows them
+    private Timer searchTimer; // Restarted by every keystroke in the search field
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-search");
+        thread.setDaemon(true); // A search in progress is of no use once the window is gone
+        return thread;
+    });
+    private Future<?> runningSearch;
+    private long searchGeneration; // Bumped on the EDT by each search; a result from an older one is dropped
+    // Everything that reads or writes the data files runs here, one operation at a time in the order asked
+    private final ExecutorService persistenceExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-persistence");
+        thread.setDaemon(true); // Closing the window queues the final save and exits once it is done
+        return thread;
+    });
+    private final AtomicInteger queuedWrites = new AtomicInteger(); // Edits handed to the persistence thread and not yet done
+    private JProgressBar loadProgressBar;
+    private JButton cancelLoadButton; // Shown beside the progress bar while a reload runs
+    private final Object reloadCancelLock = new Object(); // Guards the two fields below, between the Cancel button and the loading thread
+    private Thread reloadThread; // Running a reload that can still be cancelled
+    private boolean reloadCancelRequested;
+    private JLabel saveStatusLabel;
+    private Timer saveStatusTimer;
+    private boolean loading; // A load or reload is running; another one is not started meanwhile
+    private boolean closing;
 
     public InventorySwingGUI() {
-        // Initialize inventory manager
-        inventoryManager = new InventoryMgt();
+        // The inventory manager is created by the first load, off the EDT; see loadInBackground
 
         // Set look and feel to system default for Aero feel
         try {
@@ -142,7 +185,7 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
 
         // Set up the main window
         setTitle("TIGER MOTORHUB APP");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE); // Exits once the last save is written; see closeWindow
         setSize(1600, 900); // Default size 1600x900
         setMinimumSize(new Dimension(1024, 600));
         // Standard Windows controls (minimize, maximize, close) are default for JFrame
@@ -240,21 +283,36 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         searchField.addActionListener(this);
         searchButton.addActionListener(this);
         clearButton.addActionListener(e -> {
-            searchField.setText("");
+            searchField.setText(""); // Clears the filter through the document listener
             updateItemTable();
         });
 
-        // Item table with improved appearance
-        itemTableModel = new DefaultTableModel(new Object[]{"Model Number", "Model Name", "Price", "Quantity", "Category"}, 0) {
+        // Filter as the user types, once typing pauses
+        searchTimer = new Timer(SEARCH_DELAY_MILLIS, e -> startSearch(false));
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
             }
-        };
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes only; the text is the same
+            }
+        });
+
+        // Item table with improved appearance
+        itemTableModel = new InventoryTableModel(); // Reads the items as rows are painted
         itemTable = new JTable(itemTableModel);
         itemTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         itemTable.getTableHeader().setReorderingAllowed(false);
-        itemTable.setAutoCreateRowSorter(true);
+        itemTable.setRowSorter(new TableRowSorter<>(itemTableModel)); // Sorts by column; searches narrow the model's list instead of filtering
         itemTable.setFont(new Font("Segoe UI", Font.PLAIN, 14)); // Increased font size
         itemTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14)); // Increased header font size
 
@@ -328,7 +386,32 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         statusTextArea.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         JScrollPane statusScrollPane = new JScrollPane(statusTextArea);
         statusScrollPane.setPreferredSize(new Dimension(getWidth(), 60)); // Fixed height
-        add(statusScrollPane, BorderLayout.SOUTH);
+
+        // Load progress and the saving indicator, right of the status text
+        loadProgressBar = new JProgressBar(0, 100);
+        loadProgressBar.setStringPainted(true);
+        loadProgressBar.setVisible(false);
+        cancelLoadButton = new JButton("Cancel");
+        cancelLoadButton.setVisible(false);
+        cancelLoadButton.addActionListener(e -> {
+            synchronized (reloadCancelLock) {
+                reloadCancelRequested = true;
+                if (reloadThread != null) {
+                    reloadThread.interrupt(); // InventoryMgt.loadData stops at its next check and keeps the inventory as it was
+                }
+            }
+        });
+        saveStatusLabel = new JLabel(" ");
+        saveStatusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        saveStatusTimer = new Timer(SAVE_STATUS_MILLIS, e -> updateSaveStatus());
+        JPanel persistencePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        persistencePanel.add(loadProgressBar);
+        persistencePanel.add(cancelLoadButton);
+        persistencePanel.add(saveStatusLabel);
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(statusScrollPane, BorderLayout.CENTER);
+        statusPanel.add(persistencePanel, BorderLayout.EAST);
+        add(statusPanel, BorderLayout.SOUTH);
 
         // Bottom panel for restock notification (bottom right)
         JPanel bottomPanel = new JPanel(new BorderLayout());
@@ -351,11 +434,6 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
             // Icon not found, continue without it
         }
 
-        // Load initial data and update UI - InventoryMgt constructor now handles initial load
-        // inventoryManager.importData(InventoryMgt.DATA_FILE); // Removed
-        updateCategoryTree();
-        updateItemTable();
-
         // For the whole window - remove previous color settings
         // Color mainBg = new Color(100, 100, 100);
         // Color cardBg = new Color(100, 100, 100);
@@ -367,21 +445,27 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         // splitPane.setBackground(new Color(49, 52, 99));
         // splitPane.setUI(...);
 
+        // Write out any pending saves before the window closes the application
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                closeWindow();
+            }
+        });
+
         setVisible(true);
 
+        // Load initial data with the window already up; the views are drawn once it is in
+        setInventoryControlsEnabled(false);
+        loadInBackground();
+
         // Add keyboard shortcut for F5 (refresh)
         getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
             .put(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), "refreshView");
         getRootPane().getActionMap().put("refreshView", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                // Fix for F5 refresh: Reload data and update UI components
-                inventoryManager = new InventoryMgt(); // Reinitialize inventory manager to reload all data
-                updateCategoryTree();
-                updateItemTable();
-                updateRestockAlerts();
-                updateTotalWorthLabel();
-                statusTextArea.setText("Inventory refreshed successfully.");
+                reloadFromDisk();
             }
         });
     }
@@ -433,16 +517,14 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         viewLogMenuItem.addActionListener(e -> showTransactionLogDialog());
         viewMenu.add(viewLogMenuItem);
 
-        JMenuItem refreshViewMenuItem = new JMenuItem("Refresh View");
-        refreshViewMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0)); // F5 key
-        refreshViewMenuItem.addActionListener(e -> {
-            inventoryManager.loadData(); // Reload all data from file
-            updateItemTable();
-            updateCategoryTree();
-            updateRestockAlerts();
-            updateTotalWorthLabel();
-        });
-        viewMenu.add(refreshViewMenuItem);
+        JMenuItem priceRangeMenuItem = new JMenuItem("Find by Price Range");
+        priceRangeMenuItem.addActionListener(e -> showPriceRangeDialog());
+        viewMenu.add(priceRangeMenuItem);
+
+        JMenuItem reloadMenuItem = new JMenuItem("Reload from Disk");
+        reloadMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0)); // F5 key
+        reloadMenuItem.addActionListener(e -> reloadFromDisk());
+        viewMenu.add(reloadMenuItem);
 
         return menuBar;
     }
@@ -477,10 +559,8 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
                 showSetDataFilePathDialog();
                 break;
                 case "Refresh":
-                    updateItemTable();
-                    updateCategoryTree();
-                    updateRestockAlerts();
-                    updateTotalWorthLabel();
+                    updateItemTable(); // Back to every item, whatever filter was showing
+                    updateAllGUIComponents();
                     JOptionPane.showMessageDialog(this, "Inventory refreshed!", "Refresh", JOptionPane.INFORMATION_MESSAGE);
                 break;
                 default:
@@ -494,50 +574,96 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         }
     }
 
-    // Method to filter items in the table based on search field text
+    // Method to filter items in the table based on search field text, right away
     private void filterItems() {
-        try {
-            String searchTerm = searchField.getText().trim();
-            if (searchTerm.isEmpty()) {
-                updateItemTable();
-                return;
-            }
+        searchTimer.stop();
+        startSearch(true);
+    }
 
-            Item foundItem = inventoryManager.searchItem(searchTerm);
-            if (foundItem != null) {
-                itemTableModel.setRowCount(0); // Clear existing data
-                itemTableModel.addRow(new Object[]{foundItem.getModelNumber(), foundItem.getModelName(), foundItem.getModelPrice(), foundItem.getItemQuantity(), foundItem.getItemCategory()});
-            } else {
-                // If not found by item search, try filtering by category
-                boolean foundCategory = false;
-                for (Category category : inventoryManager.getItemCategories()) {
-                    if (category.getCategoryName().equalsIgnoreCase(searchTerm)) {
-                        filterItemsByCategory(category.getCategoryName());
-                        foundCategory = true;
-                        break;
-                    }
+    /**
+     * Searches for the text in the search field on the search thread and shows the matching
+     * rows once it is done, unless another search has started by then; the one still
+     * running is interrupted. The rows to show are picked on the search thread too, so the
+     * EDT only swaps the list in and repaints. The priority is as before: an exact model number shows
+     * that item, a category name that category's items, anything else every item whose
+     * name, number or category matches the words.
+     * @param explicit The search was asked for rather than typed, so finding nothing is reported
+     */
+    private void startSearch(boolean explicit) {
+        long generation = ++searchGeneration;
+        if (runningSearch != null) {
+            runningSearch.cancel(true);
+            runningSearch = null;
+        }
+        String searchTerm = searchField.getText().trim();
+        List<Item> rows = unfilteredRows;
+        if (searchTerm.isEmpty()) {
+            itemTableModel.setItems(rows);
+            return;
+        }
+        runningSearch = searchExecutor.submit(() -> {
+            try {
+                List<Item> found;
+                Item foundItem = inventoryManager.searchItem(searchTerm);
+                if (foundItem != null) {
+                    found = Collections.singletonList(foundItem);
+                } else if (inventoryManager.findCategoryByName(searchTerm) != null) {
+                    found = inventoryManager.getItemsInCategory(searchTerm);
+                } else {
+                    found = inventoryManager.findMatchingItems(searchTerm);
                 }
-                if (!foundCategory) {
-                    JOptionPane.showMessageDialog(this, "Item or category not found: " + searchTerm, "Search Result", JOptionPane.INFORMATION_MESSAGE);
-                    updateItemTable(); // Show all items if nothing is found
+                Set<Item> matches = Collections.newSetFromMap(new IdentityHashMap<>(found.size() * 2));
+                matches.addAll(found); // InventoryMgt replaces an item that changes, so identity finds it
+                List<Item> shown = new ArrayList<>(Math.min(rows.size(), found.size()));
+                for (int row = 0; row < rows.size(); row++) {
+                    if ((row & 0xFFFF) == 0 && Thread.currentThread().isInterrupted()) {
+                        return; // A newer search has started
+                    }
+                    if (matches.contains(rows.get(row))) {
+                        shown.add(rows.get(row)); // In the order of the rows searched, not of the matches
+                    }
                 }
+                SwingUtilities.invokeLater(() -> {
+                    if (generation != searchGeneration) {
+                        return;
+                    }
+                    runningSearch = null;
+                    itemTableModel.setItems(shown);
+                    if (explicit && found.isEmpty()) {
+                        JOptionPane.showMessageDialog(this, "Item or category not found: " + searchTerm, "Search Result", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                });
+            } catch (Exception ex) {
+                System.err.println("Error filtering items: " + ex.getMessage());
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> {
+                    if (explicit && generation == searchGeneration) {
+                        JOptionPane.showMessageDialog(this, "An error occurred during search: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
             }
-        } catch (Exception ex) {
-            System.err.println("Error filtering items: " + ex.getMessage());
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "An error occurred during search: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /**
+     * Shows the rows, narrowed by the search in the search field if there is one. Under a
+     * search the rows shown stay as they are until it has been run again over the new rows,
+     * so new and changed items are matched too.
+     */
+    private void showRows(List<Item> rows) {
+        unfilteredRows = rows;
+        if (searchField.getText().trim().isEmpty()) {
+            itemTableModel.setItems(rows);
+        } else {
+            searchTimer.stop();
+            startSearch(false);
         }
     }
 
     // Method to filter items in the table by category
     private void filterItemsByCategory(String categoryName) {
         try {
-            itemTableModel.setRowCount(0); // Clear existing data
-            for (Item item : inventoryManager.getInventoryItems()) {
-                if (item.getItemCategory().equalsIgnoreCase(categoryName)) {
-                itemTableModel.addRow(new Object[]{item.getModelNumber(), item.getModelName(), item.getModelPrice(), item.getItemQuantity(), item.getItemCategory()});
-            }
-        }
+            showRows(inventoryManager.getItemsInCategory(categoryName));
         } catch (Exception ex) {
             System.err.println("Error filtering items by category: " + ex.getMessage());
             ex.printStackTrace();
@@ -550,15 +676,15 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         try {
         int selectedRow = itemTable.getSelectedRow();
             if (selectedRow >= 0) {
-        String modelNumber = (String) itemTableModel.getValueAt(selectedRow, 0);
-                String itemName = (String) itemTableModel.getValueAt(selectedRow, 1);
-                int quantity = (int) itemTableModel.getValueAt(selectedRow, 3);
+                Item selectedItem = itemTableModel.getItemAt(itemTable.convertRowIndexToModel(selectedRow)); // The table may be sorted
+        String modelNumber = selectedItem.getModelNumber();
+                String itemName = selectedItem.getModelName();
 
                 int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to remove " + itemName + " (Model: " + modelNumber + ")?", "Confirm Remove", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-                inventoryManager.removeItemByNumber(modelNumber);
-                    JOptionPane.showMessageDialog(this, itemName + " removed successfully.", "Item Removed", JOptionPane.INFORMATION_MESSAGE);
-                    updateAllGUIComponents(); // Refresh all GUI components after removal
+                runInBackground(() -> inventoryManager.removeItemByNumber(modelNumber),
+                        () -> JOptionPane.showMessageDialog(this, itemName + " removed successfully.", "Item Removed", JOptionPane.INFORMATION_MESSAGE),
+                        ex -> showOperationError(this, "removing item", ex));
                 }
             } else {
                 JOptionPane.showMessageDialog(this, "Please select an item to remove.", "No Item Selected", JOptionPane.WARNING_MESSAGE);
@@ -575,7 +701,7 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         try {
             int selectedRow = itemTable.getSelectedRow();
             if (selectedRow >= 0) {
-                String currentModelNumber = (String) itemTableModel.getValueAt(selectedRow, 0);
+                String currentModelNumber = itemTableModel.getItemAt(itemTable.convertRowIndexToModel(selectedRow)).getModelNumber(); // The table may be sorted
                 Item itemToEdit = inventoryManager.findItemByModelNumber(currentModelNumber);
 
                 if (itemToEdit != null) {
@@ -660,16 +786,16 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
                                 return;
                             }
 
-                            // Remove the old item from inventory and its category
-                            inventoryManager.removeItemByNumber(currentModelNumber);
-
-                            // Create and add the updated item
+                            // Update in place so a price or quantity change only patches the saved snapshot
                             Item updatedItem = new Item(newModelPrice, newModelName, currentModelNumber, newItemQuantity, newItemCategory);
-                            inventoryManager.addItem(updatedItem);
-
-                            JOptionPane.showMessageDialog(editItemDialog, "Item updated successfully.", "Item Updated", JOptionPane.INFORMATION_MESSAGE);
-                            updateAllGUIComponents(); // Refresh all GUI components after edit
-                            editItemDialog.dispose(); // Close dialog on success
+                            saveButton.setEnabled(false); // Until the update is in, so it is not sent twice
+                            runInBackground(() -> inventoryManager.updateItem(currentModelNumber, updatedItem), () -> {
+                                JOptionPane.showMessageDialog(editItemDialog, "Item updated successfully.", "Item Updated", JOptionPane.INFORMATION_MESSAGE);
+                                editItemDialog.dispose(); // Close dialog on success
+                            }, ex -> {
+                                saveButton.setEnabled(true);
+                                showOperationError(editItemDialog, "editing item", ex);
+                            });
                         } catch (NumberFormatException ex) {
                             JOptionPane.showMessageDialog(editItemDialog, "Invalid number format for price or quantity. Please enter valid numbers.", "Input Error", JOptionPane.ERROR_MESSAGE);
                         } catch (IllegalArgumentException ex) {
@@ -793,11 +919,14 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
                     }
 
                     Item newItem = new Item(modelPrice, modelName, modelNumber, itemQuantity, itemCategory);
-                    inventoryManager.addItem(newItem);
-
-                    JOptionPane.showMessageDialog(addItemDialog, "Item added successfully!", "Add Item", JOptionPane.INFORMATION_MESSAGE);
-                    updateAllGUIComponents();
-                    addItemDialog.dispose(); // Close dialog on success
+                    saveButton.setEnabled(false); // Until the add is in, so it is not sent twice
+                    runInBackground(() -> inventoryManager.addItem(newItem), () -> {
+                        JOptionPane.showMessageDialog(addItemDialog, "Item added successfully!", "Add Item", JOptionPane.INFORMATION_MESSAGE);
+                        addItemDialog.dispose(); // Close dialog on success
+                    }, ex -> {
+                        saveButton.setEnabled(true);
+                        showOperationError(addItemDialog, "adding item", ex);
+                    });
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(addItemDialog, "Invalid number format for price or quantity. Please enter valid numbers.", "Input Error", JOptionPane.ERROR_MESSAGE);
                 } catch (IllegalArgumentException ex) {
@@ -844,16 +973,56 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
             logTextArea.setEditable(false);
             logTextArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
 
-            List<String> logs = inventoryManager.getTransactionLogs();
-            for (String log : logs) {
-                logTextArea.append(log + "\n");
-            }
-
             logDialog.add(new JScrollPane(logTextArea), BorderLayout.CENTER);
 
+            // The history lives on disk; only one page of it is read at a time, starting with the newest
+            JLabel pageLabel = new JLabel();
+            JButton olderButton = new JButton("Older");
+            JButton newerButton = new JButton("Newer");
+            // Pages are read on the persistence thread; -1 as the start means the newest page
+            int[] totalEntries = {0};
+            int[] pageStart = {-1};
+            Runnable showPage = () -> {
+                olderButton.setEnabled(false);
+                newerButton.setEnabled(false);
+                pageLabel.setText("Loading...");
+                int requestedStart = pageStart[0];
+                int[] readPage = new int[2]; // Count and start of the page read, set on the persistence thread
+                readInBackground(() -> {
+                    readPage[0] = inventoryManager.getTransactionLogCount();
+                    readPage[1] = requestedStart < 0 ? Math.max(0, readPage[0] - LOG_PAGE_SIZE) : requestedStart;
+                    return inventoryManager.getTransactionLogPage(readPage[1], LOG_PAGE_SIZE);
+                }, logs -> {
+                    totalEntries[0] = readPage[0];
+                    pageStart[0] = readPage[1];
+                    StringBuilder text = new StringBuilder();
+                    for (String log : logs) {
+                        text.append(log).append("\n");
+                    }
+                    logTextArea.setText(text.toString());
+                    logTextArea.setCaretPosition(logTextArea.getDocument().getLength());
+                    int pageEnd = Math.min(totalEntries[0], pageStart[0] + LOG_PAGE_SIZE);
+                    pageLabel.setText(totalEntries[0] == 0 ? "No entries" : "Entries " + (pageStart[0] + 1) + "-" + pageEnd + " of " + totalEntries[0]);
+                    olderButton.setEnabled(pageStart[0] > 0);
+                    newerButton.setEnabled(pageEnd < totalEntries[0]);
+                }, ex -> showOperationError(logDialog, "reading transaction log", ex));
+            };
+            olderButton.addActionListener(e -> {
+                pageStart[0] = Math.max(0, pageStart[0] - LOG_PAGE_SIZE);
+                showPage.run();
+            });
+            newerButton.addActionListener(e -> {
+                pageStart[0] = Math.min(Math.max(0, totalEntries[0] - LOG_PAGE_SIZE), pageStart[0] + LOG_PAGE_SIZE);
+                showPage.run();
+            });
+            showPage.run();
+
         JButton closeButton = new JButton("Close");
         closeButton.addActionListener(e -> logDialog.dispose());
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(pageLabel);
+        buttonPanel.add(olderButton);
+        buttonPanel.add(newerButton);
         buttonPanel.add(closeButton);
         logDialog.add(buttonPanel, BorderLayout.SOUTH);
 
@@ -866,6 +1035,41 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         }
     }
 
+    // Shows the items within a price range, cheapest first
+    private void showPriceRangeDialog() {
+        try {
+            JTextField minPriceField = new JTextField(8);
+            JTextField maxPriceField = new JTextField(8);
+            JPanel rangePanel = new JPanel(new GridLayout(2, 2, 5, 5));
+            rangePanel.add(new JLabel("Minimum Price (Php):"));
+            rangePanel.add(minPriceField);
+            rangePanel.add(new JLabel("Maximum Price (Php):"));
+            rangePanel.add(maxPriceField);
+            int result = JOptionPane.showConfirmDialog(this, rangePanel, "Find by Price Range", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            if (result != JOptionPane.OK_OPTION) {
+                return;
+            }
+            String minText = minPriceField.getText().trim();
+            String maxText = maxPriceField.getText().trim();
+            double minPrice = minText.isEmpty() ? 0 : Double.parseDouble(minText);
+            double maxPrice = maxText.isEmpty() ? Double.MAX_VALUE : Double.parseDouble(maxText);
+            List<Item> items = inventoryManager.findItemsByPrice(minPrice, maxPrice);
+            itemTable.getRowSorter().setSortKeys(null); // Keep the index's price order
+            showRows(items);
+            if (items.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No items in that price range.", "Search Result", JOptionPane.INFORMATION_MESSAGE);
+            }
+        } catch (NumberFormatException ex) {
+            System.err.println("Error parsing price range: " + ex.getMessage());
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Invalid input. Please enter valid numbers for the prices.", "Input Error", JOptionPane.ERROR_MESSAGE);
+        } catch (Exception ex) {
+            System.err.println("Error finding items by price range: " + ex.getMessage());
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "An error occurred while searching by price: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     // Method to show dialog for setting low stock threshold
     private void showSetLowStockThresholdDialog() {
             try {
@@ -877,9 +1081,9 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
                     JOptionPane.showMessageDialog(this, "Threshold cannot be negative.", "Input Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
-                inventoryManager.setLowStockThreshold(newThreshold);
-                updateRestockAlerts(); // Update alerts after setting new threshold
-                JOptionPane.showMessageDialog(this, "Low stock threshold set to: " + newThreshold, "Threshold Set", JOptionPane.INFORMATION_MESSAGE);
+                runInBackground(() -> inventoryManager.setLowStockThreshold(newThreshold),
+                        () -> JOptionPane.showMessageDialog(this, "Low stock threshold set to: " + newThreshold, "Threshold Set", JOptionPane.INFORMATION_MESSAGE),
+                        ex -> showOperationError(this, "setting low stock threshold", ex));
             }
             } catch (NumberFormatException ex) {
             System.err.println("Error parsing number during low stock threshold setting: " + ex.getMessage());
@@ -903,9 +1107,10 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
 
             if (userSelection == JFileChooser.APPROVE_OPTION) {
                 File selectedFolder = fileChooser.getSelectedFile();
-                inventoryManager.setDataFilePath(selectedFolder.getAbsolutePath());
-                JOptionPane.showMessageDialog(this, "Data will now be saved in: " + selectedFolder.getAbsolutePath(), "Data Path Set", JOptionPane.INFORMATION_MESSAGE);
-                updateAllGUIComponents(); // Refresh GUI after path change
+                // Writes the whole inventory at the new location
+                runInBackground(() -> inventoryManager.setDataFilePath(selectedFolder.getAbsolutePath()),
+                        () -> JOptionPane.showMessageDialog(this, "Data will now be saved in: " + selectedFolder.getAbsolutePath(), "Data Path Set", JOptionPane.INFORMATION_MESSAGE),
+                        ex -> showOperationError(this, "setting data file path", ex));
             }
             } catch (Exception ex) {
             System.err.println("Error setting data file path: " + ex.getMessage());
@@ -924,10 +1129,7 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
     // Method to update the item table
     public void updateItemTable() {
         try {
-            itemTableModel.setRowCount(0); // Clear existing data
-            for (Item item : inventoryManager.getInventoryItems()) {
-            itemTableModel.addRow(new Object[]{item.getModelNumber(), item.getModelName(), item.getModelPrice(), item.getItemQuantity(), item.getItemCategory()});
-            }
+            showRows(inventoryManager.getInventoryItems()); // Only the rows that changed are repainted
         } catch (Exception ex) {
             System.err.println("Error updating item table: " + ex.getMessage());
             ex.printStackTrace();
@@ -938,29 +1140,31 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
     // Method to update the category tree
     public void updateCategoryTree() {
         try {
-            DefaultMutableTreeNode root = new DefaultMutableTreeNode("Categories");
-            categoryTreeModel = new DefaultTreeModel(root);
-            categoryTree.setModel(categoryTreeModel);
+            // Use a Set to keep track of categories already added to the tree, in the order they are shown
+            Set<String> addedCategories = new LinkedHashSet<>();
 
-            // Use a Set to keep track of categories already added to the tree
-            Set<String> addedCategories = new HashSet<>();
+            InventorySnapshot snapshot = inventoryManager.getSnapshot(); // Items and categories from the same moment
 
             // Add categories from inventory items first to ensure all existing categories are shown
-            for (Item item : inventoryManager.getInventoryItems()) {
-                String categoryName = item.getItemCategory();
-                if (!addedCategories.contains(categoryName)) {
-                    root.add(new DefaultMutableTreeNode(categoryName));
-                    addedCategories.add(categoryName);
-                }
+            for (Item item : snapshot.getItems()) {
+                addedCategories.add(item.getItemCategory());
             }
 
             // Add categories from itemCategories list (might contain empty categories)
-            for (Category category : inventoryManager.getItemCategories()) {
-                String categoryName = category.getCategoryName();
-                if (!addedCategories.contains(categoryName)) {
-                    root.add(new DefaultMutableTreeNode(categoryName));
-                    addedCategories.add(categoryName);
-                }
+            for (Category category : snapshot.getCategories()) {
+                addedCategories.add(category.getCategoryName());
+            }
+            List<String> categoryNames = new ArrayList<>(addedCategories);
+            if (categoryNames.equals(shownCategories)) {
+                return; // Same categories: keep the tree, its selection and what is expanded
+            }
+            shownCategories = categoryNames;
+
+            DefaultMutableTreeNode root = new DefaultMutableTreeNode("Categories");
+            categoryTreeModel = new DefaultTreeModel(root);
+            categoryTree.setModel(categoryTreeModel);
+            for (String categoryName : categoryNames) {
+                root.add(new DefaultMutableTreeNode(categoryName));
             }
 
             categoryTreeModel.reload();
@@ -1006,13 +1210,18 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         }
     }
 
+    // Redraws every view from memory; the data file is only read again through reloadFromDisk
     private void updateAllGUIComponents() {
         try {
-            inventoryManager.loadData(); // Reload data to ensure everything is fresh
+            long version = inventoryManager.getVersion();
+            if (version == shownVersion) {
+                return; // The views already show this version
+            }
             updateItemTable();
             updateCategoryTree();
             updateRestockAlerts();
             updateTotalWorthLabel();
+            shownVersion = version;
         } catch (Exception ex) {
             System.err.println("Error updating all GUI components: " + ex.getMessage());
             ex.printStackTrace();
@@ -1020,6 +1229,223 @@ public class InventorySwingGUI extends JFrame implements ActionListener {
         }
     }
 
+    // Redraws the views the changes since the last frame touched; called on the event dispatch thread
+    private void applyInventoryChange(InventoryEvent event) {
+        if (event.itemsChanged()) {
+            updateItemTable();
+            updateTotalWorthLabel();
+        }
+        if (event.itemsChanged() || event.categoriesChanged()) {
+            updateCategoryTree();
+        }
+        if (event.categoriesChanged() || event.thresholdChanged()) {
+            updateRestockAlerts();
+        }
+        shownVersion = Math.max(shownVersion, event.getVersion());
+    }
+
+    // Reads the data file back in, e.g. after it was edited outside the program; the listener redraws the views
+    private void reloadFromDisk() {
+        if (inventoryManager != null) {
+            loadInBackground();
+        }
+    }
+
+    /**
+     * Loads the inventory on the persistence thread with the progress bar showing: the
+     * first time by creating the inventory manager, afterwards by reloading it. Edits
+     * asked for meanwhile wait behind the load on the same thread. A reload can be
+     * cancelled until it starts replacing the inventory; the first load cannot, as there
+     * is nothing to show without it.
+     */
+    private void loadInBackground() {
+        if (loading) {
+            return;
+        }
+        loading = true;
+        InventoryMgt current = inventoryManager;
+        statusTextArea.setText(current == null ? "Loading inventory..." : "Reloading inventory from disk...");
+        loadProgressBar.setValue(0);
+        loadProgressBar.setVisible(true);
+        cancelLoadButton.setVisible(current != null);
+        synchronized (reloadCancelLock) {
+            reloadCancelRequested = false;
+        }
+        SwingWorker<InventoryMgt, Void> loader = new SwingWorker<InventoryMgt, Void>() {
+            // Null for a reload that was cancelled, and so left the inventory as it was
+            @Override
+            protected InventoryMgt doInBackground() {
+                if (current == null) {
+                    return new InventoryMgt(this::setProgress);
+                }
+                synchronized (reloadCancelLock) {
+                    if (reloadCancelRequested) {
+                        return null; // Cancelled while waiting behind an edit
+                    }
+                    reloadThread = Thread.currentThread();
+                }
+                try {
+                    current.loadData(percent -> {
+                        if (percent >= InventoryMgt.LOAD_COMMIT_PROGRESS) {
+                            synchronized (reloadCancelLock) {
+                                reloadThread = null; // The reload is replacing the inventory; Cancel no longer interrupts it
+                            }
+                        }
+                        setProgress(percent);
+                    });
+                    return current;
+                } catch (CancellationException e) {
+                    return null;
+                } finally {
+                    synchronized (reloadCancelLock) {
+                        reloadThread = null;
+                    }
+                }
+            }
+
+            @Override
+            protected void done() {
+                loading = false;
+                loadProgressBar.setVisible(false);
+                cancelLoadButton.setVisible(false);
+                try {
+                    InventoryMgt loaded = get();
+                    if (loaded == null) {
+                        statusTextArea.setText("Reload cancelled.");
+                    } else if (current == null) {
+                        inventoryManager = loaded;
+                        updateAllGUIComponents();
+                        // From here on, changes redraw what they touched, merged into at most one redraw per frame
+                        inventoryManager.addInventoryListener(BatchingInventoryListener.onEventDispatchThread(InventorySwingGUI.this::applyInventoryChange));
+                        setInventoryControlsEnabled(true);
+                        saveStatusTimer.start();
+                        statusTextArea.setText("Inventory loaded.");
+                    } else {
+                        statusTextArea.setText("Inventory reloaded from disk.");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    System.err.println("Error loading inventory: " + e.getCause());
+                    e.getCause().printStackTrace();
+                    statusTextArea.setText("Loading the inventory failed.");
+                    JOptionPane.showMessageDialog(InventorySwingGUI.this, "An error occurred while loading the inventory: " + e.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        loader.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                int percent = (Integer) e.getNewValue();
+                loadProgressBar.setValue(percent);
+                if (percent >= InventoryMgt.LOAD_COMMIT_PROGRESS) {
+                    cancelLoadButton.setVisible(false); // Too late to cancel
+                }
+            }
+        });
+        persistenceExecutor.execute(loader);
+    }
+
+    // Menus, search and the category tree are of no use until the first load has created the inventory manager
+    private void setInventoryControlsEnabled(boolean enabled) {
+        JMenuBar menuBar = getJMenuBar();
+        for (int i = 0; i < menuBar.getMenuCount(); i++) {
+            menuBar.getMenu(i).setEnabled(enabled);
+        }
+        searchField.setEnabled(enabled);
+        searchButton.setEnabled(enabled);
+        clearButton.setEnabled(enabled);
+        categoryTree.setEnabled(enabled);
+        itemTable.setEnabled(enabled);
+    }
+
+    /**
+     * Runs an edit on the persistence thread, so the EDT never waits on the journal, the
+     * log or a writer holding the inventory lock. Edits run one at a time in the order
+     * they were asked for, so their saves reach the writer thread in that order too.
+     * @param onDone Runs on the EDT once the edit has been made
+     * @param onError Runs on the EDT with what the edit threw
+     */
+    private void runInBackground(Runnable edit, Runnable onDone, Consumer<Exception> onError) {
+        queuedWrites.incrementAndGet();
+        updateSaveStatus();
+        readInBackground(() -> {
+            try {
+                edit.run();
+                return null;
+            } finally {
+                queuedWrites.decrementAndGet();
+            }
+        }, result -> onDone.run(), onError);
+    }
+
+    // Like runInBackground for an operation that only reads, handing its result to onDone
+    private <T> void readInBackground(Callable<T> operation, Consumer<T> onDone, Consumer<Exception> onError) {
+        persistenceExecutor.execute(new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return operation.call();
+            }
+
+            @Override
+            protected void done() {
+                T result;
+                try {
+                    result = get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    onError.accept(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                    return;
+                }
+                onDone.accept(result);
+            }
+        });
+    }
+
+    // Reports an edit the inventory manager refused as an input error, and anything else as unexpected
+    private void showOperationError(Component parent, String action, Exception ex) {
+        if (ex instanceof IllegalArgumentException || ex instanceof IllegalStateException) {
+            JOptionPane.showMessageDialog(parent, "Error " + action + ": " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        System.err.println("Error " + action + ": " + ex.getMessage());
+        ex.printStackTrace();
+        JOptionPane.showMessageDialog(parent, "An unexpected error occurred while " + action + ": " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    // Shows "Saving..." while edits are queued or the writer thread has changes to write
+    private void updateSaveStatus() {
+        boolean saving = queuedWrites.get() > 0 || (inventoryManager != null && inventoryManager.isSaving());
+        saveStatusLabel.setText(saving ? "Saving..." : "All changes saved");
+    }
+
+    // Queues the final save behind every edit still waiting and exits once it has been written
+    private void closeWindow() {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        searchExecutor.shutdownNow();
+        saveStatusTimer.stop();
+        saveStatusLabel.setText("Saving...");
+        setEnabled(false);
+        persistenceExecutor.execute(() -> {
+            try {
+                if (inventoryManager != null) {
+                    inventoryManager.shutdown();
+                }
+            } catch (Exception e) {
+                System.err.println("Error saving on exit: " + e.getMessage());
+                e.printStackTrace();
+            }
+            SwingUtilities.invokeLater(() -> {
+                dispose();
+                System.exit(0);
+            });
+        });
+    }
+
     public static void main(String[] args) {
         // Set a global uncaught exception handler
         Thread.setDefaultUncaughtExceptionHandler((t, e) -> {
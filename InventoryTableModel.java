@@ -0,0 +1,98 @@
+import java.util.Collections;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model over a list of items. Cells are read from the items as the table paints
+ * them instead of being copied into rows up front, so showing a list costs nothing
+ * until rows come into view.
+ *
+ * setItems compares the new list with the old one by identity and fires an event for
+ * the rows in between the unchanged start and end only: InventoryMgt puts a new Item
+ * in place of one that changes, so an unchanged row still holds the same object.
+ */
+public class InventoryTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMN_NAMES = {"Model Number", "Model Name", "Price", "Quantity", "Category"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, String.class, Double.class, Integer.class, String.class};
+
+    private List<Item> items = Collections.emptyList();
+
+    // Shows the list; it must not be changed afterwards, as snapshot lists and search results are not
+    public void setItems(List<Item> newItems) {
+        List<Item> oldItems = items;
+        items = newItems;
+        int start = 0;
+        int shorter = Math.min(oldItems.size(), newItems.size());
+        while (start < shorter && oldItems.get(start) == newItems.get(start)) {
+            start++;
+        }
+        int oldEnd = oldItems.size();
+        int newEnd = newItems.size();
+        while (oldEnd > start && newEnd > start && oldItems.get(oldEnd - 1) == newItems.get(newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        if (oldEnd == start && newEnd == start) {
+            return; // Same rows
+        }
+        if (oldEnd - start == newEnd - start) {
+            fireTableRowsUpdated(start, newEnd - 1);
+        } else if (oldEnd == start) {
+            fireTableRowsInserted(start, newEnd - 1);
+        } else if (newEnd == start) {
+            fireTableRowsDeleted(start, oldEnd - 1);
+        } else {
+            fireTableDataChanged(); // Rows both added and removed, as after a search
+        }
+    }
+
+    // The list shown, the same object setItems was given
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public Item getItemAt(int row) {
+        return items.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return items.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    // Numeric columns sort as numbers rather than as text
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Item item = items.get(row);
+        switch (column) {
+            case 0:
+                return item.getModelNumber();
+            case 1:
+                return item.getModelName();
+            case 2:
+                return item.getModelPrice();
+            case 3:
+                return item.getItemQuantity();
+            case 4:
+                return item.getItemCategory();
+            default:
+                throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+}
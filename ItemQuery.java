@@ -0,0 +1,81 @@
+import java.util.Locale;
+
+/**
+ * Criteria for InventoryMgt.findItems. Unset criteria match everything; a store
+ * that supports queries turns the set ones into an indexed lookup, otherwise they
+ * are checked against the items in memory with matches().
+ */
+public class ItemQuery {
+    private String category;
+    private String nameText;
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minQuantity;
+    private Integer maxQuantity;
+
+    // Category name, matched case-insensitively
+    public ItemQuery inCategory(String category) {
+        this.category = category;
+        return this;
+    }
+
+    // Text the model name contains, case-insensitively
+    public ItemQuery nameContains(String nameText) {
+        this.nameText = nameText;
+        return this;
+    }
+
+    // Inclusive price range
+    public ItemQuery priceBetween(double minPrice, double maxPrice) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    // Inclusive quantity range
+    public ItemQuery quantityBetween(int minQuantity, int maxQuantity) {
+        this.minQuantity = minQuantity;
+        this.maxQuantity = maxQuantity;
+        return this;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getNameText() {
+        return nameText;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Integer getMinQuantity() {
+        return minQuantity;
+    }
+
+    public Integer getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public boolean matches(Item item) {
+        if (category != null && !item.getItemCategory().equalsIgnoreCase(category)) {
+            return false;
+        }
+        if (nameText != null && !item.getModelName().toLowerCase(Locale.ROOT).contains(nameText.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        if (minPrice != null && (item.getModelPrice() < minPrice || item.getModelPrice() > maxPrice)) {
+            return false;
+        }
+        if (minQuantity != null && (item.getItemQuantity() < minQuantity || item.getItemQuantity() > maxQuantity)) {
+            return false;
+        }
+        return true;
+    }
+}
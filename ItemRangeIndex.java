@@ -0,0 +1,97 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Sorted secondary index over one item field (price or quantity), for range queries
+ * and ordered views in O(log n + k). Items with the same value are kept in the order
+ * they were added.
+ *
+ * Like InventoryAggregates, the index files an item under its value when it is added.
+ * An edit replaces the item with a new one, so the old item is removed and its
+ * replacement added.
+ */
+public class ItemRangeIndex<K extends Comparable<K>> {
+    private final Function<Item, K> field;
+    private final TreeMap<K, Set<Item>> itemsByValue = new TreeMap<>();
+    private int size;
+
+    public ItemRangeIndex(Function<Item, K> field) {
+        this.field = field;
+    }
+
+    public void add(Item item) {
+        K value = field.apply(item);
+        Set<Item> items = itemsByValue.get(value);
+        if (items == null) {
+            // Identity, insertion-ordered: Item has no equals, and ties keep their order
+            items = Collections.newSetFromMap(new LinkedHashMap<Item, Boolean>());
+            itemsByValue.put(value, items);
+        }
+        if (items.add(item)) {
+            size++;
+        }
+    }
+
+    public void remove(Item item) {
+        K value = field.apply(item);
+        Set<Item> items = itemsByValue.get(value);
+        if (items != null && items.remove(item)) {
+            size--;
+            if (items.isEmpty()) {
+                itemsByValue.remove(value);
+            }
+        }
+    }
+
+    public void rebuild(List<Item> items) {
+        itemsByValue.clear();
+        size = 0;
+        for (Item item : items) {
+            add(item);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Items with a value in the range, in value order.
+     * @param from Lower bound, or null for none
+     * @param to Upper bound, or null for none
+     */
+    public List<Item> range(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        NavigableMap<K, Set<Item>> range = itemsByValue;
+        if (from != null && to != null) {
+            if (from.compareTo(to) > 0) {
+                return new ArrayList<>();
+            }
+            range = itemsByValue.subMap(from, fromInclusive, to, toInclusive);
+        } else if (from != null) {
+            range = itemsByValue.tailMap(from, fromInclusive);
+        } else if (to != null) {
+            range = itemsByValue.headMap(to, toInclusive);
+        }
+        return collect(range);
+    }
+
+    // Every item in value order, lowest first or highest first
+    public List<Item> sorted(boolean ascending) {
+        return collect(ascending ? itemsByValue : itemsByValue.descendingMap());
+    }
+
+    private static <K> List<Item> collect(Map<K, Set<Item>> range) {
+        List<Item> items = new ArrayList<>();
+        for (Set<Item> sameValue : range.values()) {
+            items.addAll(sameValue);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses the ITEM_DATA section of a data file in parallel. The section's chars are
+ * split into line-aligned ranges that are parsed as fork/join tasks; each range keeps
+ * its own items and category totals, and the results are merged in file order, so
+ * the outcome is the same as parsing the section on one thread.
+ *
+ * The end of the section is not known up front: a range stops at the first header line
+ * (ending in _DATA) it meets, and every range after that one is dropped.
+ *
+ * Category names go through one StringPool for the whole section, so every item of a
+ * category shares one String. Model names are pooled per range: repeated names share an
+ * instance within a range without the ranges contending for one pool.
+ */
+public class ItemSectionLoader {
+    static final int MIN_CHUNK_CHARS = 1 << 16; // Below this, splitting costs more than it saves
+
+    /** Items and category totals of a parsed section. */
+    public static class Result {
+        private final List<Item> items;
+        private final Map<String, Category> categoryTotals;
+        private final int sectionEnd;
+
+        Result(List<Item> items, Map<String, Category> categoryTotals, int sectionEnd) {
+            this.items = items;
+            this.categoryTotals = categoryTotals;
+            this.sectionEnd = sectionEnd;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        // Summed item quantities per category, keyed by categoryKey(name), in order of first appearance
+        public Map<String, Category> getCategoryTotals() {
+            return categoryTotals;
+        }
+
+        // Offset of the header line that ended the section, or the end of the parsed range
+        public int getSectionEnd() {
+            return sectionEnd;
+        }
+    }
+
+    // One parsed range; ranges are only concatenated once, at the very end
+    private static class Chunk {
+        final List<Item> items = new ArrayList<>();
+        final Map<String, CategoryCount> categoryCounts = new LinkedHashMap<>(); // Keyed by categoryKey(name)
+        final StringPool categoryNames;
+        final StringPool modelNames = new StringPool();
+        int headerPosition = -1; // Start of a header line met in this range
+
+        Chunk(StringPool sharedCategoryNames) {
+            categoryNames = new StringPool(sharedCategoryNames);
+        }
+    }
+
+    // Running quantity of one category in a range; turned into a Category once all ranges are summed
+    private static class CategoryCount {
+        final String categoryName; // As first seen
+        int quantity;
+
+        CategoryCount(String categoryName) {
+            this.categoryName = categoryName;
+        }
+    }
+
+    private static class ChunkTask extends RecursiveTask<List<Chunk>> {
+        private static final long serialVersionUID = 1L;
+        private final char[] buffer;
+        private final int start;
+        private final int end;
+        private final int chunkChars;
+        private final StringPool categoryNames;
+
+        ChunkTask(char[] buffer, int start, int end, int chunkChars, StringPool categoryNames) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.chunkChars = chunkChars;
+            this.categoryNames = categoryNames;
+        }
+
+        @Override
+        protected List<Chunk> compute() {
+            int middle = end - start > chunkChars ? nextLineStart(buffer, start + (end - start) / 2, end) : end;
+            if (middle >= end) {
+                List<Chunk> chunks = new ArrayList<>();
+                chunks.add(parseRange(buffer, start, end, categoryNames));
+                return chunks;
+            }
+            ChunkTask right = new ChunkTask(buffer, middle, end, chunkChars, categoryNames);
+            right.fork();
+            List<Chunk> chunks = new ChunkTask(buffer, start, middle, chunkChars, categoryNames).compute();
+            if (chunks.get(chunks.size() - 1).headerPosition >= 0) {
+                right.cancel(false); // The section ended on the left; the right half belongs to later sections
+                return chunks;
+            }
+            chunks.addAll(right.join());
+            return chunks;
+        }
+    }
+
+    /**
+     * Parses ITEM lines from start until the next section header or end.
+     * @param pool Pool to run on; with a parallelism of 1 the section is parsed on the calling thread
+     */
+    public static Result parse(char[] buffer, int start, int end, ForkJoinPool pool) {
+        int parallelism = pool == null ? 1 : pool.getParallelism();
+        StringPool categoryNames = new StringPool();
+        List<Chunk> chunks;
+        if (parallelism <= 1 || end - start <= MIN_CHUNK_CHARS) {
+            chunks = new ArrayList<>();
+            chunks.add(parseRange(buffer, start, end, categoryNames));
+        } else {
+            // A few ranges per worker, so one slow range does not leave the others idle
+            int chunkChars = Math.max(MIN_CHUNK_CHARS, (end - start) / (parallelism * 4));
+            chunks = pool.invoke(new ChunkTask(buffer, start, end, chunkChars, categoryNames));
+        }
+
+        int itemCount = 0;
+        for (Chunk chunk : chunks) {
+            itemCount += chunk.items.size();
+        }
+        List<Item> items = new ArrayList<>(itemCount);
+        Map<String, CategoryCount> categoryCounts = new LinkedHashMap<>();
+        int sectionEnd = end;
+        for (Chunk chunk : chunks) {
+            items.addAll(chunk.items);
+            for (Map.Entry<String, CategoryCount> count : chunk.categoryCounts.entrySet()) {
+                CategoryCount merged = categoryCounts.get(count.getKey());
+                if (merged == null) {
+                    categoryCounts.put(count.getKey(), count.getValue());
+                } else {
+                    merged.quantity += count.getValue().quantity;
+                }
+            }
+            if (chunk.headerPosition >= 0) {
+                sectionEnd = chunk.headerPosition;
+                break;
+            }
+        }
+        Map<String, Category> categoryTotals = new LinkedHashMap<>();
+        for (Map.Entry<String, CategoryCount> count : categoryCounts.entrySet()) {
+            categoryTotals.put(count.getKey(), new Category(count.getValue().categoryName, count.getValue().quantity));
+        }
+        return new Result(items, categoryTotals, sectionEnd);
+    }
+
+    // Category names match case-insensitively, as they always have in the loader
+    public static String categoryKey(String categoryName) {
+        return categoryName.toLowerCase(Locale.ROOT);
+    }
+
+    private static Chunk parseRange(char[] buffer, int start, int end, StringPool categoryNames) {
+        Chunk chunk = new Chunk(categoryNames);
+        CsvTokenizer tokenizer = new CsvTokenizer(buffer, start, end);
+        while (tokenizer.nextLine()) {
+            if (tokenizer.lineEndsWith("_DATA")) {
+                chunk.headerPosition = tokenizer.getLineStart();
+                break;
+            }
+            tokenizer.nextField(); // Record type
+            if (!tokenizer.fieldEquals("ITEM")) {
+                continue;
+            }
+            try {
+                if (!tokenizer.nextField()) continue;
+                String modelNumber = tokenizer.field();
+                if (!tokenizer.nextField()) continue;
+                String modelName = tokenizer.field(chunk.modelNames);
+                if (!tokenizer.nextField()) continue;
+                double modelPrice = tokenizer.fieldAsDouble();
+                if (!tokenizer.nextField()) continue;
+                int itemQuantity = tokenizer.fieldAsInt();
+                if (!tokenizer.nextField() || tokenizer.isFieldEmpty()) continue;
+                String itemCategory = tokenizer.field(chunk.categoryNames);
+
+                if (itemQuantity < 0) {
+                    throw new IllegalArgumentException("Item quantity cannot be negative");
+                }
+                String key = categoryKey(itemCategory);
+                CategoryCount count = chunk.categoryCounts.get(key);
+                if (count == null) {
+                    count = new CategoryCount(itemCategory);
+                    chunk.categoryCounts.put(key, count);
+                }
+                count.quantity += itemQuantity;
+                chunk.items.add(new Item(modelPrice, modelName, modelNumber, itemQuantity, itemCategory));
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping invalid ITEM line (Number format error): " + tokenizer.line());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping invalid ITEM line (" + e.getMessage() + "): " + tokenizer.line());
+            }
+        }
+        return chunk;
+    }
+
+    // First offset after the newline at or after position
+    private static int nextLineStart(char[] buffer, int position, int end) {
+        while (position < end && buffer[position] != '\n') {
+            position++;
+        }
+        return Math.min(end, position + 1);
+    }
+}
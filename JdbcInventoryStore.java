@@ -0,0 +1,506 @@
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * InventoryStore on an embedded, file-mode database: H2 when its driver is on the
+ * classpath, otherwise SQLite. There is no server; the database lives next to the
+ * data file (inventory_data.mv.db or inventory_data.db). The jdbc URL can also be
+ * given with the inventory.jdbc.url system property.
+ *
+ * Saves only touch the rows that changed, each save is one transaction, and item
+ * queries run against indexed columns. Neither driver ships with the application;
+ * add its jar to the classpath to use this store.
+ * AggregatesCheck run with -Dinventory.store=jdbc and the jar on the classpath
+ * exercises every save path and a reload; without the jar it stops with the missing
+ * driver error rather than checking another store.
+ */
+public class JdbcInventoryStore implements InventoryStore {
+    public static final String URL_PROPERTY = "inventory.jdbc.url";
+    private static final int LOG_COPY_PAGE = 10000;
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS inventory_meta (meta_key VARCHAR(64) PRIMARY KEY, meta_value VARCHAR(255))",
+        "CREATE TABLE IF NOT EXISTS inventory_items (model_number VARCHAR(255) PRIMARY KEY, model_name VARCHAR(1024), "
+                + "price DOUBLE, quantity INTEGER, category VARCHAR(255), category_key VARCHAR(255), seq BIGINT)",
+        "CREATE INDEX IF NOT EXISTS inventory_items_category ON inventory_items (category_key)",
+        "CREATE INDEX IF NOT EXISTS inventory_items_price ON inventory_items (price)",
+        "CREATE INDEX IF NOT EXISTS inventory_items_quantity ON inventory_items (quantity)",
+        "CREATE INDEX IF NOT EXISTS inventory_items_seq ON inventory_items (seq)",
+        "CREATE TABLE IF NOT EXISTS inventory_categories (category_name VARCHAR(255) PRIMARY KEY, quantity INTEGER, seq INTEGER)",
+        "CREATE TABLE IF NOT EXISTS inventory_log (seq BIGINT PRIMARY KEY, entry VARCHAR(2048))"
+    };
+
+    private String url;
+    private Connection connection;
+    private PreparedStatement logInsert; // Batched until flushLog()
+    private int pendingLogEntries;
+    private int logCount;
+    private boolean inSync; // The database holds what was last loaded from or written to it, so changes can be saved as changes
+
+    public JdbcInventoryStore(String dataFilePath) {
+        this.url = urlFor(dataFilePath);
+        try {
+            open();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open inventory database " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    // jdbc URL of the database file that belongs to the given data file
+    static String urlFor(String dataFilePath) {
+        String configuredUrl = System.getProperty(URL_PROPERTY);
+        if (configuredUrl != null && !configuredUrl.trim().isEmpty()) {
+            return configuredUrl.trim();
+        }
+        String basePath = new File(dataFilePath).getAbsolutePath();
+        if (basePath.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            basePath = basePath.substring(0, basePath.length() - 4);
+        }
+        if (driverAvailable("org.h2.Driver")) {
+            return "jdbc:h2:file:" + basePath;
+        }
+        if (driverAvailable("org.sqlite.JDBC")) {
+            return "jdbc:sqlite:" + basePath + ".db";
+        }
+        throw new IllegalStateException("No embedded database driver found; add the H2 or SQLite jar to the classpath");
+    }
+
+    private static boolean driverAvailable(String driverClass) {
+        try {
+            Class.forName(driverClass);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private void open() throws SQLException {
+        connection = DriverManager.getConnection(url);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+        connection.commit();
+        logCount = (int) queryLong("SELECT COUNT(*) FROM inventory_log");
+        logInsert = connection.prepareStatement("INSERT INTO inventory_log (seq, entry) VALUES (?, ?)");
+        pendingLogEntries = 0;
+        inSync = false; // Whatever this database holds, it is not yet known to match memory
+    }
+
+    @Override
+    public String getLocation() {
+        return url;
+    }
+
+    @Override
+    public synchronized void setDataFilePath(String dataFilePath) {
+        String newUrl = urlFor(dataFilePath);
+        if (newUrl.equals(url)) {
+            return;
+        }
+        flushLog();
+        Connection oldConnection = connection;
+        PreparedStatement oldLogInsert = logInsert;
+        int oldLogCount = logCount;
+        boolean oldInSync = inSync;
+        String oldUrl = url;
+        try {
+            url = newUrl;
+            open();
+            if (logCount == 0 && oldLogCount > 0) {
+                // Carry the transaction history over to the new database
+                for (int from = 0; from < oldLogCount; from += LOG_COPY_PAGE) {
+                    for (String entry : readLogs(oldConnection, from, LOG_COPY_PAGE)) {
+                        appendLog(entry);
+                    }
+                    if (flushPendingLogs()) {
+                        connection.commit(); // Not flushLog(): a failure here has to reach the catch below
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error moving inventory database from " + oldUrl + " to " + newUrl + ", staying at " + oldUrl + ": " + e.getMessage());
+            e.printStackTrace();
+            if (connection != oldConnection) {
+                try {
+                    connection.close();
+                } catch (SQLException closeError) {
+                    System.err.println("Error closing inventory database " + newUrl + ": " + closeError.getMessage());
+                }
+            }
+            url = oldUrl;
+            connection = oldConnection;
+            logInsert = oldLogInsert;
+            logCount = oldLogCount;
+            inSync = oldInSync;
+            pendingLogEntries = 0;
+            return;
+        }
+        try {
+            oldConnection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing inventory database " + oldUrl + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized boolean exists() {
+        return readMeta("snapshot_id") != null;
+    }
+
+    @Override
+    public synchronized long lastModified() {
+        String modified = readMeta("modified");
+        return modified == null ? 0L : Long.parseLong(modified);
+    }
+
+    @Override
+    public synchronized Map<String, Object> load() {
+        if (!exists()) {
+            return null;
+        }
+        try {
+            List<Item> items = new ArrayList<>();
+            StringPool strings = new StringPool(); // Category and model names repeat across rows
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT price, model_name, model_number, quantity, category FROM inventory_items ORDER BY seq")) {
+                while (rows.next()) {
+                    items.add(itemFrom(rows, strings));
+                }
+            }
+            List<Category> categories = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT category_name, quantity FROM inventory_categories ORDER BY seq")) {
+                while (rows.next()) {
+                    categories.add(new Category(strings.intern(rows.getString(1)), rows.getInt(2)));
+                }
+            }
+            String threshold = readMeta("threshold");
+            String snapshotId = readMeta("snapshot_id");
+
+            Map<String, Object> loadedData = new HashMap<>();
+            loadedData.put("items", items);
+            loadedData.put("categories", categories);
+            loadedData.put("logs", new ArrayList<String>()); // The history stays in inventory_log
+            loadedData.put("lowStockThreshold", threshold == null ? 5 : Integer.parseInt(threshold));
+            loadedData.put("dataPath", null); // The caller keeps its own data path
+            loadedData.put("snapshotId", snapshotId.isEmpty() ? null : snapshotId);
+            loadedData.put("complete", true);
+            inSync = true;
+            System.out.println("Loaded inventory database " + url);
+            return loadedData;
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error reading inventory database " + url + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized boolean snapshot(List<Item> items, List<Category> categories, int lowStockThreshold, String snapshotId) {
+        try {
+            flushPendingLogs();
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM inventory_items");
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO inventory_items (price, model_name, model_number, quantity, category, category_key, seq) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < items.size(); i++) {
+                    bindItem(insert, items.get(i));
+                    insert.setLong(7, i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            writeCategories(categories);
+            writeMeta(lowStockThreshold, snapshotId);
+            connection.commit();
+            inSync = true;
+            System.out.println("Inventory database written: " + items.size() + " items in " + url);
+            return true;
+        } catch (SQLException e) {
+            return rollback("Error writing inventory database", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean save(List<Item> items, List<Category> categories, int lowStockThreshold, DirtyTracker changes, String snapshotId) {
+        if (!canSaveInPlace(changes)) {
+            return snapshot(items, categories, lowStockThreshold, snapshotId);
+        }
+        try {
+            flushPendingLogs();
+            if (!changes.getRemovedItems().isEmpty()) {
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM inventory_items WHERE model_number = ?")) {
+                    for (String modelNumber : changes.getRemovedItems()) {
+                        delete.setString(1, modelNumber);
+                        delete.addBatch();
+                    }
+                    delete.executeBatch();
+                }
+            }
+            if (!changes.getDirtyItems().isEmpty()) {
+                long nextSeq = queryLong("SELECT COALESCE(MAX(seq), -1) + 1 FROM inventory_items");
+                try (PreparedStatement update = connection.prepareStatement(
+                        "UPDATE inventory_items SET price = ?, model_name = ?, model_number = ?, quantity = ?, category = ?, category_key = ? WHERE model_number = ?");
+                     PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO inventory_items (price, model_name, model_number, quantity, category, category_key, seq) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                    // In list order, so new rows get their seq in the same order as in memory
+                    for (Item item : items) {
+                        if (!changes.getDirtyItems().contains(item.getModelNumber())) {
+                            continue;
+                        }
+                        bindItem(update, item);
+                        update.setString(7, item.getModelNumber());
+                        if (update.executeUpdate() == 0) {
+                            bindItem(insert, item);
+                            insert.setLong(7, nextSeq++);
+                            insert.executeUpdate();
+                        }
+                    }
+                }
+            }
+            if (changes.isDirty(DirtyTracker.CATEGORY_DATA)) {
+                writeCategories(categories); // A handful of rows; rewritten as a whole
+            }
+            writeMeta(lowStockThreshold, snapshotId);
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            return rollback("Error saving changes to inventory database", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean canSaveInPlace(DirtyTracker changes) {
+        return inSync && !changes.isFullRewrite(); // A database just moved to needs everything written once
+    }
+
+    private void writeCategories(List<Category> categories) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM inventory_categories");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO inventory_categories (category_name, quantity, seq) VALUES (?, ?, ?)")) {
+            int seq = 0;
+            for (Category category : categories) {
+                if (category.getCategoryQuantity() > 0) { // Same rule as the files: empty categories are not kept
+                    insert.setString(1, category.getCategoryName());
+                    insert.setInt(2, category.getCategoryQuantity());
+                    insert.setInt(3, seq++);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void writeMeta(int lowStockThreshold, String snapshotId) throws SQLException {
+        setMeta("threshold", String.valueOf(lowStockThreshold));
+        setMeta("snapshot_id", snapshotId == null ? "" : snapshotId);
+        setMeta("modified", String.valueOf(System.currentTimeMillis()));
+    }
+
+    private void setMeta(String key, String value) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement("UPDATE inventory_meta SET meta_value = ? WHERE meta_key = ?")) {
+            update.setString(1, value);
+            update.setString(2, key);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO inventory_meta (meta_key, meta_value) VALUES (?, ?)")) {
+            insert.setString(1, key);
+            insert.setString(2, value);
+            insert.executeUpdate();
+        }
+    }
+
+    private String readMeta(String key) {
+        try (PreparedStatement select = connection.prepareStatement("SELECT meta_value FROM inventory_meta WHERE meta_key = ?")) {
+            select.setString(1, key);
+            try (ResultSet rows = select.executeQuery()) {
+                return rows.next() ? rows.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading " + key + " from inventory database: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            return rows.next() ? rows.getLong(1) : 0L;
+        }
+    }
+
+    private static void bindItem(PreparedStatement statement, Item item) throws SQLException {
+        statement.setDouble(1, item.getModelPrice());
+        statement.setString(2, item.getModelName());
+        statement.setString(3, item.getModelNumber());
+        statement.setInt(4, item.getItemQuantity());
+        statement.setString(5, item.getItemCategory());
+        statement.setString(6, ItemSectionLoader.categoryKey(item.getItemCategory()));
+    }
+
+    private static Item itemFrom(ResultSet rows, StringPool strings) throws SQLException {
+        return new Item(rows.getDouble(1), strings.intern(rows.getString(2)), rows.getString(3), rows.getInt(4), strings.intern(rows.getString(5)));
+    }
+
+    private boolean rollback(String message, SQLException e) {
+        System.err.println(message + " " + url + ": " + e.getMessage());
+        e.printStackTrace();
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackError) {
+            System.err.println("Error rolling back inventory database: " + rollbackError.getMessage());
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void appendLog(String logEntry) {
+        try {
+            logInsert.setLong(1, logCount);
+            logInsert.setString(2, logEntry);
+            logInsert.addBatch();
+            logCount++;
+            pendingLogEntries++;
+        } catch (SQLException e) {
+            System.err.println("Error appending to inventory database log: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void flushLog() {
+        try {
+            if (flushPendingLogs()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            rollback("Error writing log entries to inventory database", e);
+            logCount = (int) countLogs();
+        }
+    }
+
+    // Sends batched log inserts as part of the current transaction
+    private boolean flushPendingLogs() throws SQLException {
+        if (pendingLogEntries == 0) {
+            return false;
+        }
+        logInsert.executeBatch();
+        pendingLogEntries = 0;
+        return true;
+    }
+
+    private long countLogs() {
+        try {
+            return queryLong("SELECT COUNT(*) FROM inventory_log");
+        } catch (SQLException e) {
+            return 0L;
+        }
+    }
+
+    @Override
+    public synchronized int getLogCount() {
+        return logCount;
+    }
+
+    @Override
+    public synchronized List<String> readLogs(int fromIndex, int count) {
+        flushLog();
+        return readLogs(connection, fromIndex, count);
+    }
+
+    private List<String> readLogs(Connection source, int fromIndex, int count) {
+        List<String> entries = new ArrayList<>();
+        try (PreparedStatement select = source.prepareStatement("SELECT entry FROM inventory_log WHERE seq >= ? AND seq < ? ORDER BY seq")) {
+            select.setLong(1, Math.max(0, fromIndex));
+            select.setLong(2, (long) fromIndex + count);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    entries.add(rows.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading inventory database log: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean supportsQueries() {
+        return true;
+    }
+
+    @Override
+    public synchronized List<Item> findItems(ItemQuery query) {
+        StringBuilder sql = new StringBuilder("SELECT price, model_name, model_number, quantity, category FROM inventory_items WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        if (query.getCategory() != null) {
+            sql.append(" AND category_key = ?");
+            parameters.add(ItemSectionLoader.categoryKey(query.getCategory()));
+        }
+        if (query.getNameText() != null) {
+            sql.append(" AND LOWER(model_name) LIKE ? ESCAPE '\\'");
+            String escaped = query.getNameText().toLowerCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            parameters.add("%" + escaped + "%");
+        }
+        if (query.getMinPrice() != null) {
+            sql.append(" AND price BETWEEN ? AND ?");
+            parameters.add(query.getMinPrice());
+            parameters.add(query.getMaxPrice());
+        }
+        if (query.getMinQuantity() != null) {
+            sql.append(" AND quantity BETWEEN ? AND ?");
+            parameters.add(query.getMinQuantity());
+            parameters.add(query.getMaxQuantity());
+        }
+        sql.append(" ORDER BY seq");
+
+        List<Item> items = new ArrayList<>();
+        StringPool strings = new StringPool();
+        try (PreparedStatement select = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < parameters.size(); i++) {
+                select.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    items.add(itemFrom(rows, strings));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error querying inventory database: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return items;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        flushLog();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing inventory database " + url + ": " + e.getMessage());
+        }
+    }
+}
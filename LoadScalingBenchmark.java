@@ -0,0 +1,118 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scale test for the parallel ITEM_DATA loader. Parses the same synthetic catalog
+ * with 1, 2, 4, ... worker threads up to the number of cores, checks that every run
+ * yields the same items and category totals as the single-threaded one, and reports
+ * the speed-up of the item section alone and of the whole file load.
+ *
+ * Usage: java LoadScalingBenchmark [itemCount] [rounds]
+ * Defaults to 1000000 items and 5 timed rounds per thread count. Exits with status 1
+ * if the results differ, or if more than one core is available and the best
+ * parallel run of the item section is not at least 1.5x faster than one thread.
+ */
+@SuppressWarnings("unchecked")
+public class LoadScalingBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        File dataFile = File.createTempFile("inventory_scaling", ".csv");
+        dataFile.deleteOnExit();
+        CsvLoadBenchmark.writeSyntheticFile(dataFile, itemCount, 0);
+        CsvTokenizer tokenizer = CsvTokenizer.forFile(dataFile.getPath());
+        int sectionStart = sectionStart(tokenizer);
+        System.out.printf("Synthetic file: %,d items, %,d bytes, %d cores%n", itemCount, dataFile.length(), cores);
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+
+        Availability availability = new Availability(dataFile.getPath());
+        ItemSectionLoader.Result reference = null;
+        long sectionBaseline = 0;
+        long loadBaseline = 0;
+        double bestSectionSpeedUp = 1.0;
+        boolean consistent = true;
+        for (int threads : threadCounts) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            availability.setLoaderParallelism(threads);
+            ItemSectionLoader.Result result = ItemSectionLoader.parse(tokenizer.getBuffer(), sectionStart, tokenizer.getEnd(), pool); // Warm-up
+            availability.readAllDataFromFile();
+
+            long sectionBest = Long.MAX_VALUE;
+            long loadBest = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                result = ItemSectionLoader.parse(tokenizer.getBuffer(), sectionStart, tokenizer.getEnd(), pool);
+                sectionBest = Math.min(sectionBest, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                Map<String, Object> loaded = availability.readAllDataFromFile();
+                loadBest = Math.min(loadBest, System.nanoTime() - start);
+                consistent &= ((List<Item>) loaded.get("items")).size() == itemCount;
+            }
+            pool.shutdown();
+
+            if (reference == null) {
+                reference = result;
+                sectionBaseline = sectionBest;
+                loadBaseline = loadBest;
+            } else {
+                consistent &= sameResult(reference, result);
+                bestSectionSpeedUp = Math.max(bestSectionSpeedUp, (double) sectionBaseline / sectionBest);
+            }
+            System.out.printf("%2d threads: ITEM_DATA %,8.1f ms (%.2fx)   whole file %,8.1f ms (%.2fx)%n",
+                    threads, sectionBest / 1e6, (double) sectionBaseline / sectionBest, loadBest / 1e6, (double) loadBaseline / loadBest);
+        }
+
+        if (!consistent) {
+            System.out.println("FAILED: parallel loads did not match the single-threaded load");
+            System.exit(1);
+        }
+        if (cores > 1 && bestSectionSpeedUp < 1.5) {
+            System.out.printf("FAILED: best ITEM_DATA speed-up %.2fx on %d cores%n", bestSectionSpeedUp, cores);
+            System.exit(1);
+        }
+        System.out.printf("OK: results identical, best ITEM_DATA speed-up %.2fx%n", bestSectionSpeedUp);
+    }
+
+    // Offset just past the ITEM_DATA header
+    private static int sectionStart(CsvTokenizer tokenizer) {
+        while (tokenizer.nextLine()) {
+            if (tokenizer.line().equals("ITEM_DATA")) {
+                return tokenizer.getPosition();
+            }
+        }
+        throw new IllegalStateException("No ITEM_DATA section");
+    }
+
+    private static boolean sameResult(ItemSectionLoader.Result expected, ItemSectionLoader.Result actual) {
+        if (expected.getItems().size() != actual.getItems().size()
+                || !expected.getCategoryTotals().keySet().equals(actual.getCategoryTotals().keySet())) {
+            return false;
+        }
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            Item a = expected.getItems().get(i);
+            Item b = actual.getItems().get(i);
+            if (!a.getModelNumber().equals(b.getModelNumber()) || a.getItemQuantity() != b.getItemQuantity() || a.getModelPrice() != b.getModelPrice()) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, Category> total : expected.getCategoryTotals().entrySet()) {
+            if (total.getValue().getCategoryQuantity() != actual.getCategoryTotals().get(total.getKey()).getCategoryQuantity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces save requests onto a dedicated writer thread (group commit).
+ * Callers only mark the state dirty; the write task runs at most once per save
+ * window, and never while a logical operation is still in progress. Every save
+ * request that was absorbed by a later write is counted as coalesced.
+ */
+public class SaveScheduler {
+    public static final long DEFAULT_WINDOW_MILLIS = 250;
+
+    private final Runnable writeTask;
+    private final ScheduledExecutorService writerThread;
+    private long windowMillis;
+
+    // Guarded by this
+    private boolean dirty;
+    private int operationDepth;
+    private ScheduledFuture<?> pendingWrite;
+    private long saveRequests;
+    private long writesPerformed;
+    private boolean writing;
+
+    public SaveScheduler(Runnable writeTask) {
+        this(writeTask, DEFAULT_WINDOW_MILLIS);
+    }
+
+    public SaveScheduler(Runnable writeTask, long windowMillis) {
+        if (writeTask == null) {
+            throw new IllegalArgumentException("Write task cannot be null");
+        }
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Save window cannot be negative");
+        }
+        this.writeTask = writeTask;
+        this.windowMillis = windowMillis;
+        this.writerThread = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-writer");
+            thread.setDaemon(true); // Never keep the JVM alive; flush() is the shutdown path
+            return thread;
+        });
+    }
+
+    public synchronized long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public synchronized void setWindowMillis(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Save window cannot be negative");
+        }
+        this.windowMillis = windowMillis;
+    }
+
+    // Records that the state changed; the actual write happens later on the writer thread
+    public synchronized void markDirty() {
+        saveRequests++;
+        dirty = true;
+        if (operationDepth == 0) {
+            scheduleWrite();
+        }
+    }
+
+    // Saves requested between begin and end of an operation are written together once it ends
+    public synchronized void beginOperation() {
+        operationDepth++;
+    }
+
+    public synchronized void endOperation() {
+        if (operationDepth == 0) {
+            throw new IllegalStateException("endOperation called without a matching beginOperation");
+        }
+        operationDepth--;
+        if (operationDepth == 0 && dirty) {
+            scheduleWrite();
+        }
+    }
+
+    private void scheduleWrite() {
+        if (pendingWrite == null) {
+            pendingWrite = writerThread.schedule(this::runWrite, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runWrite() {
+        synchronized (this) {
+            pendingWrite = null;
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            writesPerformed++;
+            writing = true;
+        }
+        try {
+            writeTask.run();
+        } catch (Exception e) {
+            System.err.println("Error in background save: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            synchronized (this) {
+                writing = false;
+            }
+        }
+    }
+
+    // Changes are waiting for a write, or one is running
+    public synchronized boolean isBusy() {
+        return dirty || writing;
+    }
+
+    /**
+     * Writes any pending changes immediately and waits for the write to finish.
+     * Must not be called from the writer thread itself.
+     */
+    public void flush() {
+        Future<?> write;
+        synchronized (this) {
+            if (pendingWrite != null) {
+                pendingWrite.cancel(false);
+                pendingWrite = null;
+            }
+            if (writerThread.isShutdown()) {
+                return;
+            }
+            // Queued behind any write already running, so ordering is preserved
+            write = writerThread.submit(this::runWrite);
+        }
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error flushing pending saves: " + e.getCause());
+        }
+    }
+
+    // Flushes pending changes and stops the writer thread
+    public void shutdown() {
+        flush();
+        writerThread.shutdown();
+    }
+
+    public synchronized long getSaveRequestCount() {
+        return saveRequests;
+    }
+
+    public synchronized long getWriteCount() {
+        return writesPerformed;
+    }
+
+    // Save requests that did not cost a write of their own
+    public synchronized long getCoalescedWriteCount() {
+        return saveRequests - writesPerformed;
+    }
+}
@@ -0,0 +1,439 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory full-text index over item model names, model numbers and categories.
+ *
+ * Text is split into lower-case tokens at anything that is not a letter or digit and
+ * between letters and digits, so "Wave125 Oil" and "wave 125 oil" give the same tokens.
+ * Every token of a query has to match a token of the item: exactly, as a prefix (through
+ * the sorted term dictionary), or within a small edit distance (through a trigram index
+ * over the terms of letters; numbers are never corrected). Matches are ranked by how well
+ * each token matched, ties going to the item indexed first.
+ *
+ * Each item gets an increasing document id; posting lists are sorted id arrays, so an
+ * add appends and a query intersects by binary search from the smallest list. The lists
+ * of the driving token are walked best match first, and the walk stops as soon as the
+ * results are full of items no later one could beat, so broad queries stay cheap. Removed
+ * ids are left behind and the index is rebuilt once they outnumber the live ones.
+ */
+public class SearchIndex {
+    public static final int DEFAULT_LIMIT = 50;
+
+    static final int MAX_PREFIX_TERMS = 64; // Terms a prefix may expand to, taken in dictionary order
+    static final int MIN_FUZZY_LENGTH = 4; // Shorter tokens are too ambiguous to correct
+    static final int MAX_GRAM_TERMS = 50000; // Trigrams shared by more terms than this are not selective
+
+    private static final float EXACT_SCORE = 1.0f;
+    private static final float PREFIX_SCORE = 0.6f;
+    private static final float FUZZY_SCORE = 0.4f;
+
+    // Sorted ids of the documents containing a term
+    private static class Posting {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id; // Ids only grow, so the array stays sorted
+        }
+
+        void remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    // One term a query token matched, with what the match is worth
+    private static class TermMatch {
+        final Posting posting;
+        final float score;
+
+        TermMatch(Posting posting, float score) {
+            this.posting = posting;
+            this.score = score;
+        }
+    }
+
+    private static class ScoredItem {
+        final int id;
+        final float score;
+
+        ScoredItem(int id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private final TreeMap<String, Posting> terms = new TreeMap<>();
+    private final Map<String, List<String>> termsByGram = new HashMap<>(); // May hold terms since dropped
+    private final List<Item> documents = new ArrayList<>(); // By id; null once removed
+    private final List<String[]> documentTerms = new ArrayList<>(); // By id, to unindex an item that changed
+    private final Map<Item, Integer> idByItem = new IdentityHashMap<>();
+    private int removedCount;
+
+    public synchronized void rebuild(List<Item> items) {
+        terms.clear();
+        termsByGram.clear();
+        documents.clear();
+        documentTerms.clear();
+        idByItem.clear();
+        removedCount = 0;
+        for (Item item : items) {
+            index(item);
+        }
+    }
+
+    public synchronized void add(Item item) {
+        if (!idByItem.containsKey(item)) {
+            index(item);
+        }
+    }
+
+    public synchronized void remove(Item item) {
+        Integer id = idByItem.remove(item);
+        if (id == null) {
+            return;
+        }
+        for (String term : documentTerms.get(id)) {
+            Posting posting = terms.get(term);
+            posting.remove(id);
+            if (posting.size == 0) {
+                terms.remove(term);
+            }
+        }
+        documents.set(id, null);
+        documentTerms.set(id, null);
+        removedCount++;
+        if (removedCount > 1024 && removedCount > idByItem.size()) {
+            rebuild(new ArrayList<>(liveDocuments()));
+        }
+    }
+
+    public synchronized int size() {
+        return idByItem.size();
+    }
+
+    /**
+     * Finds the items matching every token of the query, best match first.
+     * @param query Words or fragments of a model name, model number or category
+     * @param limit Maximum number of items to return
+     */
+    public synchronized List<Item> search(String query, int limit) {
+        List<List<TermMatch>> tokenMatches = matchTokens(query);
+        if (tokenMatches == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<TermMatch> driver = new ArrayList<>(tokenMatches.get(0));
+        driver.sort((a, b) -> Float.compare(b.score, a.score));
+        float otherTokensBest = 0;
+        for (List<TermMatch> matches : tokenMatches.subList(1, tokenMatches.size())) {
+            float tokenBest = 0;
+            for (TermMatch match : matches) {
+                tokenBest = Math.max(tokenBest, match.score);
+            }
+            otherTokensBest += tokenBest;
+        }
+
+        // Lowest score first, and among equal scores the later item, which is the one to drop
+        PriorityQueue<ScoredItem> best = new PriorityQueue<>(limit + 1, (a, b) -> a.score != b.score ? Float.compare(a.score, b.score) : Integer.compare(b.id, a.id));
+        Set<Integer> seen = driver.size() > 1 ? new HashSet<Integer>() : null;
+        for (TermMatch driverMatch : driver) {
+            // Ids ascend, so once the results are full at this bound nothing further in this list or the next can get in
+            float bound = driverMatch.score + otherTokensBest;
+            Posting posting = driverMatch.posting;
+            for (int i = 0; i < posting.size; i++) {
+                if (best.size() == limit && best.peek().score >= bound) {
+                    break;
+                }
+                int id = posting.ids[i];
+                if (seen != null && !seen.add(id)) {
+                    continue;
+                }
+                float score = 0;
+                for (List<TermMatch> matches : tokenMatches) {
+                    float tokenScore = bestScore(matches, id);
+                    if (tokenScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += tokenScore;
+                }
+                if (score == 0) {
+                    continue;
+                }
+                best.add(new ScoredItem(id, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Item> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            results.add(documents.get(best.poll().id));
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    /**
+     * Finds every item matching every token of the query, in the order they were indexed.
+     * Unlike search nothing is scored, so filtering a whole list this way costs a probe
+     * per candidate of the rarest token rather than a ranking.
+     */
+    public synchronized List<Item> searchAll(String query) {
+        List<Item> results = new ArrayList<>();
+        List<List<TermMatch>> tokenMatches = matchTokens(query);
+        if (tokenMatches == null) {
+            return results;
+        }
+        List<TermMatch> driver = tokenMatches.get(0);
+        List<List<TermMatch>> others = tokenMatches.subList(1, tokenMatches.size());
+        Set<Integer> seen = driver.size() > 1 ? new HashSet<Integer>() : null;
+        for (TermMatch driverMatch : driver) {
+            Posting posting = driverMatch.posting;
+            for (int i = 0; i < posting.size; i++) {
+                int id = posting.ids[i];
+                if (seen != null && !seen.add(id)) {
+                    continue;
+                }
+                boolean matchesAll = true;
+                for (List<TermMatch> matches : others) {
+                    if (bestScore(matches, id) == 0) {
+                        matchesAll = false;
+                        break;
+                    }
+                }
+                if (matchesAll) {
+                    results.add(documents.get(id));
+                }
+            }
+        }
+        if (seen != null) {
+            results.sort(Comparator.comparingInt(idByItem::get)); // Several driving lists interleave
+        }
+        return results;
+    }
+
+    // The terms each distinct query token matched, rarest token first; null if any matched none
+    private List<List<TermMatch>> matchTokens(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return null;
+        }
+        List<List<TermMatch>> tokenMatches = new ArrayList<>();
+        for (String token : new HashSet<>(queryTokens)) {
+            List<TermMatch> matches = match(token);
+            if (matches.isEmpty()) {
+                return null; // Nothing can match every token
+            }
+            tokenMatches.add(matches);
+        }
+        // Drive from the token with the fewest candidates and probe the others
+        tokenMatches.sort(Comparator.comparingInt(SearchIndex::candidateCount));
+        return tokenMatches;
+    }
+
+    /**
+     * Splits text into lower-case tokens at non-alphanumeric characters and at every
+     * change between letters and digits.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            boolean letterOrDigit = Character.isLetterOrDigit(c);
+            if (start >= 0 && (!letterOrDigit || Character.isDigit(c) != Character.isDigit(lower.charAt(start)))) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+            if (letterOrDigit && start < 0) {
+                start = i;
+            }
+        }
+        return tokens;
+    }
+
+    private void index(Item item) {
+        int id = documents.size();
+        List<String> itemTerms = tokenize(item.getModelNumber());
+        itemTerms.addAll(tokenize(item.getModelName()));
+        itemTerms.addAll(tokenize(item.getItemCategory()));
+        for (int i = itemTerms.size() - 1; i > 0; i--) {
+            if (itemTerms.subList(0, i).contains(itemTerms.get(i))) {
+                itemTerms.remove(i); // A handful of tokens, so a scan beats hashing
+            }
+        }
+        for (String term : itemTerms) {
+            Posting posting = terms.get(term);
+            if (posting == null) {
+                posting = new Posting();
+                terms.put(term, posting);
+                if (term.length() >= MIN_FUZZY_LENGTH - 1 && !Character.isDigit(term.charAt(0))) {
+                    for (String gram : trigrams(term)) {
+                        List<String> gramTerms = termsByGram.get(gram);
+                        if (gramTerms == null) {
+                            gramTerms = new ArrayList<>();
+                            termsByGram.put(gram, gramTerms);
+                        }
+                        gramTerms.add(term);
+                    }
+                }
+            }
+            posting.add(id);
+        }
+        documents.add(item);
+        documentTerms.add(itemTerms.toArray(new String[0]));
+        idByItem.put(item, id);
+    }
+
+    // The terms a query token matches: itself, terms it is a prefix of, or near misses when neither exists
+    private List<TermMatch> match(String token) {
+        List<TermMatch> matches = new ArrayList<>();
+        Posting exact = terms.get(token);
+        if (exact != null) {
+            matches.add(new TermMatch(exact, EXACT_SCORE));
+        }
+        SortedMap<String, Posting> completions = terms.subMap(token + Character.MIN_VALUE, token + Character.MAX_VALUE);
+        int expanded = 0;
+        for (Map.Entry<String, Posting> completion : completions.entrySet()) {
+            if (expanded++ == MAX_PREFIX_TERMS) {
+                break;
+            }
+            // Completions that add fewer characters rank higher
+            float closeness = (float) token.length() / completion.getKey().length();
+            matches.add(new TermMatch(completion.getValue(), PREFIX_SCORE * (0.5f + 0.5f * closeness)));
+        }
+        if (matches.isEmpty() && token.length() >= MIN_FUZZY_LENGTH && !Character.isDigit(token.charAt(0))) {
+            int maxDistance = token.length() >= 8 ? 2 : 1;
+            for (String candidate : fuzzyCandidates(token, maxDistance)) {
+                int distance = editDistance(token, candidate, maxDistance);
+                if (distance <= maxDistance) {
+                    matches.add(new TermMatch(terms.get(candidate), FUZZY_SCORE / distance));
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Terms sharing enough trigrams with the token to be within maxDistance edits of it
+    private Set<String> fuzzyCandidates(String token, int maxDistance) {
+        Map<String, Integer> sharedGrams = new HashMap<>();
+        List<String> grams = trigrams(token);
+        int skipped = 0;
+        for (String gram : new HashSet<>(grams)) {
+            List<String> gramTerms = termsByGram.get(gram);
+            if (gramTerms == null) {
+                continue;
+            }
+            if (gramTerms.size() > MAX_GRAM_TERMS) {
+                skipped++;
+                continue;
+            }
+            for (String term : gramTerms) {
+                Integer count = sharedGrams.get(term);
+                sharedGrams.put(term, count == null ? 1 : count + 1);
+            }
+        }
+        // Each edit destroys at most three trigrams
+        int required = Math.max(1, grams.size() - 3 * maxDistance - skipped);
+        Set<String> candidates = new HashSet<>();
+        for (Map.Entry<String, Integer> shared : sharedGrams.entrySet()) {
+            String term = shared.getKey();
+            if (shared.getValue() >= required && Math.abs(term.length() - token.length()) <= maxDistance && terms.containsKey(term)) {
+                candidates.add(term);
+            }
+        }
+        return candidates;
+    }
+
+    // Trigrams of the term padded with a boundary marker, so short terms still have a few
+    private static List<String> trigrams(String term) {
+        String padded = "\u0000" + term + "\u0000";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Levenshtein distance, or maxDistance + 1 as soon as it is known to be larger
+    static int editDistance(String a, String b, int maxDistance) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static float bestScore(List<TermMatch> matches, int id) {
+        float best = 0;
+        for (TermMatch match : matches) {
+            if (match.score > best && match.posting.contains(id)) {
+                best = match.score;
+            }
+        }
+        return best;
+    }
+
+    private static int candidateCount(List<TermMatch> matches) {
+        int count = 0;
+        for (TermMatch match : matches) {
+            count += match.posting.size;
+        }
+        return count;
+    }
+
+    private List<Item> liveDocuments() {
+        List<Item> live = new ArrayList<>(idByItem.size());
+        for (Item item : documents) {
+            if (item != null) {
+                live.add(item);
+            }
+        }
+        return live;
+    }
+}
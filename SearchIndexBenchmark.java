@@ -0,0 +1,73 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latency test for SearchIndex. Indexes a synthetic catalog of motorcycle parts and
+ * times a set of counter-style queries (fragments, prefixes, typos), then checks that
+ * the index follows updates and removals.
+ *
+ * Usage: java SearchIndexBenchmark [itemCount] [rounds]
+ * Defaults to 1000000 items and 200 rounds per query. Exits with status 1 if a query
+ * misses an item it should find, or if the median query takes a millisecond or more.
+ */
+public class SearchIndexBenchmark {
+    private static final String[] MODELS = {"Wave125", "Click150", "XRM125", "Raider150", "Mio110", "Beat110", "TMX155", "Sniper150"};
+    private static final String[] PARTS = {"Oil Filter", "Brake Shoe", "Steering Knuckle", "Clutch Lining", "Spark Plug", "Chain Sprocket", "Head Gasket", "Piston Ring"};
+    private static final String[] BRANDS = {"HKZ", "TMX", "NGK", "RK", "KOYO", "DID", "YSS", "OSAKI"};
+
+    public static void main(String[] args) {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            String name = MODELS[i % MODELS.length] + " " + PARTS[(i / MODELS.length) % PARTS.length] + " " + BRANDS[(i / 64) % BRANDS.length];
+            items.add(CsvLoadBenchmark.syntheticItem(i, name));
+        }
+        SearchIndex index = new SearchIndex();
+        long start = System.nanoTime();
+        index.rebuild(items);
+        System.out.printf("Indexed %,d items in %d ms%n", itemCount, (System.nanoTime() - start) / 1000000);
+
+        String[] queries = {"wave125 oil", "knuckle hkz", "TM-" + (itemCount / 2), "snipr", "clutch lin", "raider spark ngk", "stering knukle"};
+        boolean passed = true;
+        List<Long> medians = new ArrayList<>();
+        for (String query : queries) {
+            List<Item> results = index.search(query, SearchIndex.DEFAULT_LIMIT); // Warm-up
+            long[] times = new long[rounds];
+            for (int round = 0; round < rounds; round++) {
+                long queryStart = System.nanoTime();
+                results = index.search(query, SearchIndex.DEFAULT_LIMIT);
+                times[round] = System.nanoTime() - queryStart;
+            }
+            Arrays.sort(times);
+            medians.add(times[rounds / 2]);
+            System.out.printf("%-20s %3d results, median %7.3f ms, first: %s%n", "\"" + query + "\"", results.size(), times[rounds / 2] / 1e6,
+                    results.isEmpty() ? "-" : results.get(0).getModelNumber() + " " + results.get(0).getModelName());
+            if (results.isEmpty()) {
+                System.out.println("FAIL: no results for \"" + query + "\"");
+                passed = false;
+            }
+        }
+        // Incremental maintenance: renamed and removed items must be found, or not, right away
+        Item original = items.get(7);
+        Item renamed = new Item(original.getModelPrice(), "Zoomer Carburetor Kit", original.getModelNumber(), original.getItemQuantity(), original.getItemCategory());
+        index.remove(original);
+        index.add(renamed);
+        index.remove(items.get(8));
+        if (!index.search("zoomer carb", 5).contains(renamed) || index.search("TM-8", itemCount).contains(items.get(8))) {
+            System.out.println("FAIL: the index did not follow an update or a removal");
+            passed = false;
+        }
+
+        medians.sort(null);
+        long median = medians.get(medians.size() / 2);
+        System.out.printf("Median over queries: %.3f ms%n", median / 1e6);
+        if (median >= 1000000) {
+            System.out.println("FAIL: the median query took a millisecond or more");
+            passed = false;
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
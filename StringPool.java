@@ -0,0 +1,112 @@
+/**
+ * Hands out one String instance per distinct value, looked up straight from a range
+ * of chars so that a repeated value costs no allocation at all. The loaders use it for
+ * category names and model names, which repeat across many rows.
+ *
+ * A pool is for one thread. Pools created over a shared pool (one per loader task)
+ * fetch each new value from the shared pool once, so every task ends up with the same
+ * instances; the shared pool is synchronized and only used through its children.
+ */
+public class StringPool {
+    private final StringPool shared;
+    private String[] table = new String[64]; // Open addressing, at most half full
+    private int[] hashes = new int[64];
+    private int size;
+
+    public StringPool() {
+        this(null);
+    }
+
+    public StringPool(StringPool shared) {
+        this.shared = shared;
+    }
+
+    public String intern(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i]; // Same as String.hashCode, so intern(String) finds it too
+        }
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String value = table[slot];
+            if (value == null) {
+                return add(slot, hash, new String(chars, start, end - start));
+            }
+            if (hashes[slot] == hash && regionEquals(value, chars, start, end)) {
+                return value;
+            }
+        }
+    }
+
+    public String intern(String value) {
+        return value == null ? null : lookup(value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private String lookup(String value) {
+        int hash = value.hashCode();
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String existing = table[slot];
+            if (existing == null) {
+                return add(slot, hash, value);
+            }
+            if (hashes[slot] == hash && existing.equals(value)) {
+                return existing;
+            }
+        }
+    }
+
+    private String add(int slot, int hash, String value) {
+        if (shared != null) {
+            value = shared.internShared(value);
+        }
+        table[slot] = value;
+        hashes[slot] = hash;
+        if (++size * 2 > table.length) {
+            rehash();
+        }
+        return value;
+    }
+
+    private synchronized String internShared(String value) {
+        return lookup(value);
+    }
+
+    private void rehash() {
+        String[] oldTable = table;
+        int[] oldHashes = hashes;
+        table = new String[oldTable.length * 2];
+        hashes = new int[oldTable.length * 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != null) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = oldTable[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean regionEquals(String value, char[] chars, int start, int end) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,613 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only transaction log kept in its own files next to the inventory data,
+ * so the history no longer has to sit on the heap or be rewritten with every
+ * snapshot.
+ *
+ * New entries go to the active segment, inventory_data.log, one UTF-8 line per
+ * entry; inventory_data.log.idx holds the byte offset of every entry as a fixed
+ * 8-byte value, so any page of it can be read with two seeks. The active segment
+ * is closed when an entry from a new month arrives or it grows past the size limit.
+ * Closed segments are compacted and gzipped on a background thread, e.g.
+ * inventory_data.2025-06.1.log.gz, and listed in order in inventory_data.log.manifest
+ * so paging still reaches the whole history.
+ */
+public class TransactionLogStore {
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".log.idx";
+    private static final String MANIFEST_SUFFIX = ".log.manifest";
+    private static final String ARCHIVE_SUFFIX = ".gz";
+    public static final long DEFAULT_MAX_SEGMENT_BYTES = 4L << 20;
+
+    private String basePath;
+    private String logFilePath;
+    private String indexFilePath;
+    private String manifestFilePath;
+    private DataOutputStream logOut;
+    private DataOutputStream indexOut;
+    private long logLength; // Bytes in the active segment, including buffered ones
+    private int entryCount; // Entries in the active segment
+    private String activeMonth; // yyyy-MM of the entries in the active segment
+    private long maxSegmentBytes = DEFAULT_MAX_SEGMENT_BYTES;
+
+    // Closed segments, oldest first, as listed in the manifest
+    private final List<Segment> segments = new ArrayList<>();
+    private int archivedEntryCount;
+
+    // The last closed segment read, so paging through it decompresses it once
+    private Segment cachedSegment;
+    private List<String> cachedEntries;
+
+    private final ExecutorService archiver = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "log-archiver");
+        thread.setDaemon(true); // Half-done archives are redone from the manifest on the next start
+        return thread;
+    });
+
+    // One closed segment of the log
+    private static class Segment {
+        String fileName; // Plain file name while pending, .gz once archived
+        String month;
+        int entryCount;
+        int foldedCount; // Entries compaction took out of the segment
+        boolean archived;
+    }
+
+    public TransactionLogStore(String dataFilePath) {
+        setDataFilePath(dataFilePath);
+    }
+
+    // inventory_data.csv -> inventory_data.log, inventory_data.log.idx and inventory_data.log.manifest, in the same folder
+    public synchronized void setDataFilePath(String dataFilePath) {
+        closeStreams();
+        this.basePath = dataFilePath.toLowerCase().endsWith(".csv") ? dataFilePath.substring(0, dataFilePath.length() - 4) : dataFilePath;
+        this.logFilePath = basePath + LOG_SUFFIX;
+        this.indexFilePath = basePath + INDEX_SUFFIX;
+        this.manifestFilePath = basePath + MANIFEST_SUFFIX;
+        cachedSegment = null;
+        cachedEntries = null;
+        loadManifest();
+        openIndex();
+    }
+
+    /**
+     * Moves the log along with the data file: the active segment, the closed segments and
+     * the manifest are copied to the new folder unless a log already exists there, which
+     * is then used as is.
+     */
+    public synchronized void relocate(String dataFilePath) {
+        flush();
+        String oldBasePath = basePath;
+        List<String> oldFiles = new ArrayList<>();
+        oldFiles.add(logFilePath);
+        oldFiles.add(indexFilePath);
+        oldFiles.add(manifestFilePath);
+        for (Segment segment : segments) {
+            oldFiles.add(new File(new File(logFilePath).getParentFile(), segment.fileName).getPath());
+        }
+        String oldLogPath = logFilePath;
+        setDataFilePath(dataFilePath);
+        if (oldLogPath.equals(logFilePath) || new File(logFilePath).exists() || new File(manifestFilePath).exists()) {
+            return;
+        }
+        File newFolder = new File(logFilePath).getAbsoluteFile().getParentFile();
+        String oldBaseName = new File(oldBasePath).getName();
+        String newBaseName = new File(basePath).getName();
+        try {
+            for (String oldFile : oldFiles) {
+                File source = new File(oldFile);
+                if (source.exists()) {
+                    String targetName = newBaseName + source.getName().substring(oldBaseName.length());
+                    Files.copy(source.toPath(), new File(newFolder, targetName).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            if (!oldBaseName.equals(newBaseName) && new File(manifestFilePath).exists()) {
+                // Segment names in the manifest start with the data file name
+                List<String> lines = Files.readAllLines(Paths.get(manifestFilePath), StandardCharsets.UTF_8);
+                List<String> renamed = new ArrayList<>();
+                for (String line : lines) {
+                    renamed.add(line.replace("," + oldBaseName + ".", "," + newBaseName + "."));
+                }
+                Files.write(Paths.get(manifestFilePath), renamed, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            System.err.println("Error copying transaction log to " + logFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        setDataFilePath(dataFilePath);
+    }
+
+    public synchronized String getLogFilePath() {
+        return logFilePath;
+    }
+
+    public synchronized String getManifestFilePath() {
+        return manifestFilePath;
+    }
+
+    public synchronized void setMaxSegmentBytes(long maxSegmentBytes) {
+        if (maxSegmentBytes <= 0) {
+            throw new IllegalArgumentException("Segment size limit must be positive");
+        }
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    // Entries in the whole history, closed segments included
+    public synchronized int size() {
+        return archivedEntryCount + entryCount;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    // Reads the entry count from the index, rebuilding the index from the log if it is missing or out of step
+    private void openIndex() {
+        File logFile = new File(logFilePath);
+        File indexFile = new File(indexFilePath);
+        logLength = logFile.length();
+        entryCount = (int) (indexFile.length() / 8);
+        activeMonth = null;
+        try {
+            if (logLength > 0 && (entryCount == 0 || lastIndexedOffset() >= logLength)) {
+                rebuildIndex();
+            }
+            if (logLength == 0) {
+                entryCount = 0;
+            } else {
+                try (BufferedReader reader = Files.newBufferedReader(logFile.toPath(), StandardCharsets.UTF_8)) {
+                    activeMonth = monthOf(reader.readLine());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error opening transaction log index " + indexFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private long lastIndexedOffset() throws IOException {
+        try (RandomAccessFile index = new RandomAccessFile(indexFilePath, "r")) {
+            index.seek((long) (entryCount - 1) * 8);
+            return index.readLong();
+        }
+    }
+
+    private void rebuildIndex() throws IOException {
+        System.out.println("Rebuilding transaction log index " + indexFilePath);
+        try (RandomAccessFile log = new RandomAccessFile(logFilePath, "r");
+             DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFilePath, false)))) {
+            byte[] chunk = new byte[1 << 16];
+            long offset = 0;
+            boolean atLineStart = true;
+            int count = 0;
+            int read;
+            while ((read = log.read(chunk)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (atLineStart) {
+                        index.writeLong(offset + i);
+                        count++;
+                        atLineStart = false;
+                    }
+                    if (chunk[i] == '\n') {
+                        atLineStart = true;
+                    }
+                }
+                offset += read;
+            }
+            entryCount = count;
+        }
+    }
+
+    public synchronized void append(String entry) {
+        try {
+            String month = monthOf(entry);
+            if (entryCount > 0 && (!month.equals(activeMonth) || logLength >= maxSegmentBytes)) {
+                rotate();
+            }
+            if (entryCount == 0) {
+                activeMonth = month;
+            }
+            if (logOut == null) {
+                logOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFilePath, true), 1 << 16));
+                indexOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFilePath, true)));
+            }
+            byte[] line = (entry + "\n").getBytes(StandardCharsets.UTF_8);
+            indexOut.writeLong(logLength);
+            logOut.write(line);
+            logLength += line.length;
+            entryCount++;
+        } catch (IOException e) {
+            System.err.println("Error appending to transaction log " + logFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Closes the active segment and hands it to the archiver
+    private void rotate() throws IOException {
+        closeStreams();
+        int sequence = 1;
+        for (Segment segment : segments) {
+            if (segment.month.equals(activeMonth)) {
+                sequence++;
+            }
+        }
+        Segment segment = new Segment();
+        segment.fileName = new File(basePath).getName() + "." + activeMonth + "." + sequence + LOG_SUFFIX;
+        segment.month = activeMonth;
+        segment.entryCount = entryCount;
+
+        // The manifest is written first; a listed segment whose file never appeared is dropped on load
+        segments.add(segment);
+        archivedEntryCount += entryCount;
+        saveManifest();
+        moveFile(Paths.get(logFilePath), segmentPath(segment));
+        new File(indexFilePath).delete();
+        logLength = 0;
+        entryCount = 0;
+        activeMonth = null;
+        System.out.println("Transaction log segment closed: " + segment.fileName);
+        scheduleArchive(segment);
+    }
+
+    // Pushes buffered entries to disk; the log goes first so the index never points past it
+    public synchronized void flush() {
+        try {
+            if (logOut != null) {
+                logOut.flush();
+                indexOut.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Error flushing transaction log " + logFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads entries [fromIndex, fromIndex + count) of the whole history in log order,
+     * oldest first. The range is clipped to the entries that exist.
+     */
+    public synchronized List<String> readPage(int fromIndex, int count) {
+        List<String> page = new ArrayList<>();
+        int start = Math.max(0, fromIndex);
+        int end = Math.min(size(), fromIndex + count);
+        if (start >= end) {
+            return page;
+        }
+        int segmentStart = 0;
+        for (Segment segment : segments) {
+            int segmentEnd = segmentStart + segment.entryCount;
+            if (start < segmentEnd && end > segmentStart) {
+                List<String> entries = readSegment(segment);
+                for (int i = Math.max(start, segmentStart); i < Math.min(end, segmentEnd) && i - segmentStart < entries.size(); i++) {
+                    page.add(entries.get(i - segmentStart));
+                }
+            }
+            segmentStart = segmentEnd;
+        }
+        if (end > archivedEntryCount) {
+            page.addAll(readActivePage(Math.max(start, archivedEntryCount) - archivedEntryCount, end - archivedEntryCount));
+        }
+        return page;
+    }
+
+    // The newest entries, oldest first
+    public synchronized List<String> readRecent(int count) {
+        return readPage(size() - count, count);
+    }
+
+    private List<String> readActivePage(int start, int end) {
+        List<String> page = new ArrayList<>();
+        flush();
+        try (RandomAccessFile index = new RandomAccessFile(indexFilePath, "r");
+             RandomAccessFile log = new RandomAccessFile(logFilePath, "r")) {
+            index.seek((long) start * 8);
+            long startOffset = index.readLong();
+            long endOffset = logLength;
+            if (end < entryCount) {
+                index.seek((long) end * 8);
+                endOffset = index.readLong();
+            }
+            byte[] bytes = new byte[(int) (endOffset - startOffset)];
+            log.seek(startOffset);
+            log.readFully(bytes);
+            int lineStart = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    page.add(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8).trim());
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < bytes.length) {
+                page.add(new String(bytes, lineStart, bytes.length - lineStart, StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading transaction log " + logFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return page;
+    }
+
+    private List<String> readSegment(Segment segment) {
+        if (segment == cachedSegment) {
+            return cachedEntries;
+        }
+        try {
+            cachedEntries = readLines(segmentPath(segment), segment.archived);
+            cachedSegment = segment;
+            return cachedEntries;
+        } catch (IOException e) {
+            System.err.println("Error reading transaction log segment " + segment.fileName + ": " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    private static List<String> readLines(Path path, boolean compressed) throws IOException {
+        List<String> lines = new ArrayList<>();
+        InputStream in = new FileInputStream(path.toFile());
+        if (compressed) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line.trim());
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void scheduleArchive(Segment segment) {
+        String jobManifestPath = manifestFilePath;
+        Path plainPath = segmentPath(segment);
+        archiver.submit(() -> archive(segment, jobManifestPath, plainPath));
+    }
+
+    /**
+     * Compacts a closed segment and writes it as gzip. The slow part runs without the
+     * lock; the switch from the plain file to the archive happens under it, and is
+     * skipped if the store has moved to another data file in the meantime.
+     */
+    private void archive(Segment segment, String jobManifestPath, Path plainPath) {
+        Path archivePath = Paths.get(plainPath + ARCHIVE_SUFFIX);
+        Path tempPath = Paths.get(archivePath + Availability.TEMP_SUFFIX);
+        try {
+            List<String> entries = compact(readLines(plainPath, false));
+            try (FileOutputStream fileOut = new FileOutputStream(tempPath.toFile(), false)) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(fileOut, 1 << 16);
+                Writer writer = new OutputStreamWriter(gzipOut, StandardCharsets.UTF_8);
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+                writer.flush();
+                gzipOut.finish();
+                fileOut.getChannel().force(true);
+            }
+            synchronized (this) {
+                if (!jobManifestPath.equals(manifestFilePath) || !segments.contains(segment)) {
+                    Files.deleteIfExists(tempPath);
+                    return;
+                }
+                moveFile(tempPath, archivePath);
+                segment.foldedCount += segment.entryCount - entries.size();
+                archivedEntryCount -= segment.entryCount - entries.size();
+                segment.entryCount = entries.size();
+                segment.fileName = archivePath.getFileName().toString();
+                segment.archived = true;
+                saveManifest();
+                Files.deleteIfExists(plainPath);
+                if (segment == cachedSegment) {
+                    cachedSegment = null;
+                    cachedEntries = null;
+                }
+            }
+            System.out.println("Transaction log segment archived: " + archivePath.getFileName());
+        } catch (IOException e) {
+            System.err.println("Error archiving transaction log segment " + plainPath + ": " + e.getMessage());
+            e.printStackTrace();
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException ignored) {
+                // Nothing more to clean up; the plain segment is still listed and gets retried next start
+            }
+        }
+    }
+
+    /**
+     * Folds superseded entries out of a closed segment: an ADD followed by a REMOVE of the
+     * same model number, and all but the last low stock threshold change. They are replaced
+     * by one CHECKPOINT line at the position of the first folded entry. Entries whose
+     * fields cannot be told apart (e.g. a model name with commas) are always kept.
+     */
+    static List<String> compact(List<String> entries) {
+        boolean[] folded = new boolean[entries.size()];
+        Map<String, Integer> openAdds = new HashMap<>(); // Model number -> ADD entry not yet removed
+        int lastThresholdChange = -1;
+        int foldedCount = 0;
+        int firstFolded = -1;
+        for (int i = 0; i < entries.size(); i++) {
+            String[] parts = entries.get(i).split(",", -1);
+            int supersededEntry = -1;
+            if (parts[0].equals("LOWSTOCK")) {
+                supersededEntry = lastThresholdChange;
+                lastThresholdChange = i;
+            } else if (parts[0].equals("LOG") && parts.length == 7) {
+                if (parts[2].equals("ADD")) {
+                    openAdds.putIfAbsent(parts[4], i);
+                } else if (parts[2].equals("REMOVE") && openAdds.containsKey(parts[4])) {
+                    supersededEntry = openAdds.remove(parts[4]);
+                    folded[i] = true;
+                    foldedCount++;
+                }
+            }
+            if (supersededEntry >= 0) {
+                folded[supersededEntry] = true;
+                foldedCount++;
+                firstFolded = firstFolded < 0 ? supersededEntry : Math.min(firstFolded, supersededEntry);
+            }
+        }
+        if (foldedCount == 0) {
+            return entries;
+        }
+        List<String> compacted = new ArrayList<>(entries.size() - foldedCount + 1);
+        for (int i = 0; i < entries.size(); i++) {
+            if (i == firstFolded) {
+                String[] parts = entries.get(i).split(",", -1);
+                String timestamp = parts.length > 1 ? parts[1] : "";
+                compacted.add("LOG," + timestamp + ",CHECKPOINT,Folded " + foldedCount + " superseded entries,,0,");
+            }
+            if (!folded[i]) {
+                compacted.add(entries.get(i));
+            }
+        }
+        return compacted;
+    }
+
+    // Waits until every closed segment handed to the archiver so far is compressed
+    public void awaitArchiving() {
+        try {
+            archiver.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error waiting for the log archiver: " + e.getCause());
+        }
+    }
+
+    // Manifest lines: SEGMENT,fileName,month,entryCount,foldedCount,PLAIN|GZIP
+    private void loadManifest() {
+        segments.clear();
+        archivedEntryCount = 0;
+        File manifestFile = new File(manifestFilePath);
+        if (!manifestFile.exists()) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(",");
+                if (parts.length < 6 || !parts[0].equals("SEGMENT")) {
+                    continue;
+                }
+                Segment segment = new Segment();
+                segment.fileName = parts[1];
+                segment.month = parts[2];
+                segment.entryCount = Integer.parseInt(parts[3]);
+                segment.foldedCount = Integer.parseInt(parts[4]);
+                segment.archived = parts[5].equals("GZIP");
+                if (!segment.archived && !segmentPath(segment).toFile().exists()
+                        && Paths.get(segmentPath(segment) + ARCHIVE_SUFFIX).toFile().exists()) {
+                    // Archived, but the manifest update did not make it to disk
+                    segment.fileName += ARCHIVE_SUFFIX;
+                    segment.archived = true;
+                    segment.entryCount = readLines(segmentPath(segment), true).size();
+                }
+                if (!segmentPath(segment).toFile().exists()) {
+                    System.err.println("Transaction log segment missing, skipped: " + segment.fileName);
+                    continue;
+                }
+                segments.add(segment);
+                archivedEntryCount += segment.entryCount;
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading transaction log manifest " + manifestFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        for (Segment segment : segments) {
+            if (!segment.archived) {
+                scheduleArchive(segment); // Closed before the last shutdown but not compressed yet
+            }
+        }
+    }
+
+    private void saveManifest() throws IOException {
+        Path tempPath = Paths.get(manifestFilePath + Availability.TEMP_SUFFIX);
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(tempPath.toFile(), false), StandardCharsets.UTF_8))) {
+            writer.println("# Transaction log segments, oldest first; written " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+            for (Segment segment : segments) {
+                writer.println("SEGMENT," + segment.fileName + "," + segment.month + "," + segment.entryCount + ","
+                        + segment.foldedCount + "," + (segment.archived ? "GZIP" : "PLAIN"));
+            }
+        }
+        moveFile(tempPath, Paths.get(manifestFilePath));
+    }
+
+    private Path segmentPath(Segment segment) {
+        return new File(new File(logFilePath).getAbsoluteFile().getParentFile(), segment.fileName).toPath();
+    }
+
+    private static void moveFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // yyyy-MM from the timestamp field of a log line, or the current month if it has none
+    private static String monthOf(String entry) {
+        if (entry != null) {
+            int comma = entry.indexOf(',');
+            if (comma >= 0 && entry.length() >= comma + 8 && entry.charAt(comma + 5) == '-') {
+                return entry.substring(comma + 1, comma + 8);
+            }
+        }
+        return new SimpleDateFormat("yyyy-MM").format(new Date());
+    }
+
+    /**
+     * Waits for segments being archived, closes the log and stops the archiver thread.
+     * The store cannot be used afterwards. Not synchronized: the archiver takes the lock
+     * to finish a segment, so waiting for it while holding the lock would deadlock.
+     */
+    public void close() {
+        awaitArchiving();
+        closeStreams();
+        archiver.shutdown();
+    }
+
+    private synchronized void closeStreams() {
+        try {
+            if (logOut != null) {
+                logOut.close();
+                indexOut.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing transaction log " + logFilePath + ": " + e.getMessage());
+        }
+        logOut = null;
+        indexOut = null;
+    }
+}
@@ -1,6 +1,7 @@
+// Immutable: a quantity change replaces the category with a new one, as edits replace items
 public class Category {
-    private String categoryName;
-    public int categoryQuantity;
+    private final String categoryName;
+    private final int categoryQuantity;
 
     /**
      * Creates a new category with the specified name and zero quantity.
@@ -36,18 +37,6 @@ public class Category {
         return categoryName;
     }
 
-    /**
-     * Sets the name of the category.
-     * @param categoryName The new category name
-     * @throws IllegalArgumentException if categoryName is null or empty
-     */
-    public void setCategoryName(String categoryName) {
-        if (categoryName == null || categoryName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Category name cannot be null or empty");
-        }
-        this.categoryName = categoryName;
-    }
-
     /**
      * Gets the quantity of the category.
      * @return The category quantity
@@ -56,42 +45,6 @@ public class Category {
         return categoryQuantity;
     }
 
-    /**
-     * Sets the quantity of the category and checks if restocking is needed.
-     * @param quantity The new category quantity
-     * @throws IllegalArgumentException if quantity is negative
-     */
-    public void setCategoryQuantity(int quantity) {
-        if (quantity < 0) {
-            throw new IllegalArgumentException("Category quantity cannot be negative");
-        }
-        this.categoryQuantity = quantity;
-    }
-
-    /**
-     * Increases the category quantity by the specified amount.
-     * @param amount The amount to increase by
-     * @throws IllegalArgumentException if amount is negative
-     */
-    public void increaseQuantity(int amount) {
-        if (amount < 0) {
-            throw new IllegalArgumentException("Amount cannot be negative");
-        }
-        this.categoryQuantity += amount;
-    }
-
-    /**
-     * Decreases the category quantity by the specified amount.
-     * @param amount The amount to decrease by
-     * @throws IllegalArgumentException if amount is negative
-     */
-    public void decreaseQuantity(int amount) {
-        if (amount < 0) {
-            throw new IllegalArgumentException("Amount cannot be negative");
-        }
-        this.categoryQuantity = Math.max(0, this.categoryQuantity - amount);
-    }
-
     /**
      * Checks if the category needs restocking based on the provided threshold.
      * @param lowStockThreshold The threshold to compare against
@@ -1,12 +1,13 @@
 
 
+// Immutable: an edit replaces the item with a new one, so a snapshot or event holding the old object never sees it change
 public class Item {
     // Attributes
-    private double modelPrice;
-    private String modelName;
-    private String modelNumber;
-    private int itemQuantity;
-    private String itemCategory;
+    private final double modelPrice;
+    private final String modelName;
+    private final String modelNumber;
+    private final int itemQuantity;
+    private final String itemCategory;
 
     // Constructor
     public Item(double modelPrice, String modelName, String modelNumber, int itemQuantity, String itemCategory) {
@@ -37,25 +38,4 @@ public class Item {
     public String getItemCategory() {
         return itemCategory;
     }
-
-    // Setters
-    public void setModelPrice(double price) {
-        this.modelPrice = price;
-    }
-
-    public void setModelName(String name) {
-        this.modelName = name;
-    }
-
-    public void setModelNumber(String number) {
-        this.modelNumber = number;
-    }
-
-    public void setItemQuantity(int quantity) {
-        this.itemQuantity = quantity;
-    }
-
-    public void setItemCategory(String category) {
-        this.itemCategory = category;
-    }
 }